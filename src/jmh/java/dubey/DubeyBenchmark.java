@@ -0,0 +1,91 @@
+package dubey;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures {@link Dubey#getResponse(String)} end to end for each kind of command, on a task list of 10,000 tasks
+ * persisted the way the GUI does it: journaled, with group commit. Commands that change the list are followed by the
+ * command that undoes them, so the list keeps its size across iterations and a mark never finds the task already
+ * marked; those results include the undo. Adds are undone by a delete and {@code mark} by {@code unmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DubeyBenchmark {
+    private static final int TASK_COUNT = 10_000;
+
+    @Param({
+        "list",
+        "todo Benchmark task",
+        "deadline Benchmark deadline /by 2025-06-30",
+        "event Benchmark event /from 2025-06-30 1400 /to 1500",
+        "mark 5000",
+        "find report",
+        "find ~1 reprot",
+        "due 2025-06-30",
+        "before 2025-02-01",
+        "on 2025-06-30",
+        "between 2025-06-01 2025-06-30"
+    })
+    private String input;
+
+    private File directory;
+    private Dubey dubey;
+    private String undoInput;
+
+    /**
+     * Creates a Dubey instance over a freshly generated task file.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("dubey-bench").toFile();
+        String filePath = new File(directory, "tasks.txt").getPath();
+        TaskFileGenerator.generateFile(filePath, TASK_COUNT, Storage.Format.TEXT);
+        Storage storage = new Storage(filePath);
+        storage.setJournaled(true);
+        storage.setGroupCommitLatency(200);
+        dubey = new Dubey(storage);
+
+        Command.Type type = Parser.parse(input).getType();
+        if (type == Command.Type.TODO || type == Command.Type.DEADLINE || type == Command.Type.EVENT) {
+            undoInput = "delete " + (TASK_COUNT + 1);
+        } else if (type == Command.Type.MARK) {
+            undoInput = "un" + input;
+        }
+    }
+
+    /**
+     * Flushes pending writes and deletes the generated files.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dubey.close();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public String getResponse() {
+        String response = dubey.getResponse(input);
+        if (undoInput != null) {
+            dubey.getResponse(undoInput);
+        }
+        return response;
+    }
+}
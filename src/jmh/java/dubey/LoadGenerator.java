@@ -0,0 +1,125 @@
+package dubey;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput and latency of a running {@link DubeyServer}. Every client opens a connection of its own
+ * and keeps up to a fixed number of commands in flight, sending the next command as soon as a response arrives.
+ * The commands are mostly queries, with a mark and unmark of the first task now and then so that changes are
+ * measured too without the list growing.
+ */
+public final class LoadGenerator {
+    private static final String[] QUERIES = {
+        "list 1", "find report", "find ~1 meetnig", "due 2025-03-01", "before 2025-02-01", "on 2025-04-15",
+        "between 2025-05-01 2025-05-31"
+    };
+    private static final int WRITE_EVERY = 10;
+
+    private final String host;
+    private final int port;
+    private final int requestsPerClient;
+    private final int pipelineDepth;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    private LoadGenerator(String host, int port, int requestsPerClient, int pipelineDepth) {
+        this.host = host;
+        this.port = port;
+        this.requestsPerClient = requestsPerClient;
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    private void runClient(int client) {
+        try (Socket socket = new Socket(host, port);
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            Queue<Long> sendTimes = new ArrayDeque<>();
+            int sent = 0;
+            int received = 0;
+            while (received < requestsPerClient) {
+                while (sent < requestsPerClient && sendTimes.size() < pipelineDepth) {
+                    out.write(commandFor(client, sent));
+                    out.write('\n');
+                    sendTimes.add(System.nanoTime());
+                    sent++;
+                }
+                out.flush();
+                String response = DubeyServer.readResponse(in);
+                if (response == null) {
+                    throw new IOException("Connection closed after " + received + " responses");
+                }
+                latencies.record(System.nanoTime() - sendTimes.remove());
+                if (response.startsWith("Error: ")) {
+                    errorCount.incrementAndGet();
+                }
+                received++;
+            }
+            out.write("bye\n");
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Client " + client + " failed: " + e.getMessage());
+            errorCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Picks the command a client sends as its n-th request. Every tenth request marks the first task and the next
+     * one unmarks it again. The server should hold at least one task.
+     */
+    private static String commandFor(int client, int n) {
+        if (n % WRITE_EVERY == WRITE_EVERY - 2) {
+            return "mark 1";
+        } else if (n % WRITE_EVERY == WRITE_EVERY - 1) {
+            return "unmark 1";
+        }
+        return QUERIES[(client + n) % QUERIES.length];
+    }
+
+    /**
+     * Runs the load and prints the results.
+     *
+     * @param args Host, port, number of clients, requests per client and pipeline depth; all optional, defaulting
+     *             to {@code localhost 4588 8 10000 1}.
+     * @throws InterruptedException if interrupted while waiting for the clients.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 4588;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int requestsPerClient = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        int pipelineDepth = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        LoadGenerator generator = new LoadGenerator(host, port, requestsPerClient, pipelineDepth);
+        Thread[] threads = new Thread[clients];
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            threads[i] = new Thread(() -> generator.runClient(client), "load-client-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        LatencyHistogram latencies = generator.latencies;
+        System.out.printf("%d clients, pipeline depth %d: %d requests in %s, %.0f requests/s%n", clients,
+                pipelineDepth, latencies.getCount(), Metrics.formatNanos(elapsed),
+                latencies.getCount() / (elapsed / 1e9));
+        System.out.println("latency p50 " + Metrics.formatNanos(latencies.getValueAtPercentile(50))
+                + ", p99 " + Metrics.formatNanos(latencies.getValueAtPercentile(99))
+                + ", max " + Metrics.formatNanos(latencies.getMax()) + ", errors " + generator.errorCount.get());
+    }
+}
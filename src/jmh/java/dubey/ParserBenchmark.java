@@ -0,0 +1,68 @@
+package dubey;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares parsing commands with {@link Parser} against the previous approach of re-splitting the arguments with a
+ * regular expression in every getter. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParserBenchmark {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final String event = "event Project meeting /from 2025-02-01 1400 /to 2025-02-01 1600";
+    private final String deadline = "deadline Submit report /by 2025-01-30";
+    private final String mark = "mark 12";
+
+    @Benchmark
+    public void parseEvent(Blackhole blackhole) {
+        Command command = Parser.parse(event);
+        blackhole.consume(command.getDescription());
+        blackhole.consume(command.getFrom());
+        blackhole.consume(command.getTo());
+    }
+
+    @Benchmark
+    public void parseEventBySplitting(Blackhole blackhole) {
+        String arguments = event.split(" ", 2)[1];
+        blackhole.consume(arguments.split(" /from | /to ")[0]);
+        blackhole.consume(arguments.split(" /from | /to ")[1]);
+        blackhole.consume(arguments.split(" /from | /to ")[2]);
+    }
+
+    @Benchmark
+    public void parseDeadline(Blackhole blackhole) {
+        Command command = Parser.parse(deadline);
+        blackhole.consume(command.getDescription());
+        blackhole.consume(command.getDate());
+    }
+
+    @Benchmark
+    public void parseDeadlineBySplitting(Blackhole blackhole) {
+        String arguments = deadline.split(" ", 2)[1];
+        blackhole.consume(arguments.split(" /by ")[0]);
+        blackhole.consume(LocalDate.parse(arguments.split(" /by ")[1], DATE_FORMAT));
+    }
+
+    @Benchmark
+    public int parseMark() {
+        return Parser.parse(mark).getTaskNumber();
+    }
+
+    @Benchmark
+    public int parseMarkBySplitting() {
+        return Integer.parseInt(mark.split(" ", 2)[1]);
+    }
+}
@@ -0,0 +1,72 @@
+package dubey;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares rendering task lines from their cache with rendering them from scratch, as every request did before
+ * lines were cached. Run with the GC profiler, which the jmh block enables, to compare the bytes allocated per
+ * operation as well as the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+    @Param({"1000", "100000"})
+    private int taskCount;
+
+    private List<Task> tasks;
+    private Ui ui;
+
+    /**
+     * Generates the tasks and renders every line once, so the cached benchmarks start warm.
+     */
+    @Setup
+    public void setUp() {
+        tasks = TaskFileGenerator.generateTasks(taskCount, taskCount);
+        for (Task task : tasks) {
+            task.toString();
+        }
+        ui = new Ui();
+    }
+
+    @Benchmark
+    public void renderCached(Blackhole blackhole) {
+        for (Task task : tasks) {
+            blackhole.consume(task.toString());
+        }
+    }
+
+    @Benchmark
+    public void renderUncached(Blackhole blackhole) {
+        for (Task task : tasks) {
+            blackhole.consume(task.render());
+        }
+    }
+
+    @Benchmark
+    public String showTaskPage() {
+        return ui.showTaskPage(tasks, 1, 50);
+    }
+
+    /**
+     * Flips the status of the first task before listing the page it is on, so one line is rendered again per
+     * operation.
+     */
+    @Benchmark
+    public String showTaskPageAfterMark() {
+        Task task = tasks.get(0);
+        task.setStatus(!task.isDone);
+        return ui.showTaskPage(tasks, 1, 50);
+    }
+}
@@ -0,0 +1,72 @@
+package dubey;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures loading and saving whole task files of different sizes and formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int taskCount;
+
+    @Param({"TEXT", "BINARY"})
+    private Storage.Format format;
+
+    private File directory;
+    private String loadPath;
+    private String savePath;
+    private List<Task> tasks;
+
+    /**
+     * Writes the file that is loaded, and keeps the tasks that are saved.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("dubey-storage-bench").toFile();
+        loadPath = new File(directory, "load.txt").getPath();
+        savePath = new File(directory, "save.txt").getPath();
+        TaskFileGenerator.generateFile(loadPath, taskCount, format);
+        tasks = TaskFileGenerator.generateTasks(taskCount, taskCount);
+    }
+
+    /**
+     * Deletes the generated files.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public List<Task> load() {
+        return new Storage(loadPath).load();
+    }
+
+    @Benchmark
+    public void save() {
+        Storage storage = new Storage(savePath);
+        storage.setFormat(format);
+        storage.save(tasks);
+    }
+}
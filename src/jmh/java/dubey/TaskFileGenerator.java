@@ -0,0 +1,81 @@
+package dubey;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic task lists and task files for benchmarks. The same count and seed always produce the same
+ * tasks: roughly 60% todos, 25% deadlines and 15% events, about a third of them done.
+ */
+public final class TaskFileGenerator {
+    private static final String[] WORDS = {
+        "read", "book", "return", "submit", "report", "project", "meeting", "buy", "groceries", "call", "mom",
+        "finish", "assignment", "review", "code", "write", "essay", "plan", "trip", "clean", "room", "pay", "bills",
+        "prepare", "slides", "team", "lunch", "gym", "session", "doctor", "appointment", "fix", "bug", "deploy",
+        "release", "update", "resume", "library", "exam", "revision"
+    };
+    private static final LocalDate FIRST_DATE = LocalDate.of(2025, 1, 1);
+
+    private TaskFileGenerator() {
+    }
+
+    /**
+     * Generates a list of synthetic tasks.
+     *
+     * @param count Number of tasks.
+     * @param seed  Seed of the random generator.
+     * @return The tasks.
+     */
+    public static List<Task> generateTasks(int count, long seed) {
+        Random random = new Random(seed);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + i;
+            LocalDate date = FIRST_DATE.plusDays(random.nextInt(365));
+            int kind = random.nextInt(20);
+            Task task;
+            if (kind < 12) {
+                task = new Todo(description);
+            } else if (kind < 17) {
+                task = new Deadline(description, date);
+            } else {
+                int hour = 8 + random.nextInt(10);
+                task = new Event(description, date + String.format(" %02d00", hour),
+                        String.format("%02d00", hour + 1 + random.nextInt(3)));
+            }
+            task.setStatus(random.nextInt(3) == 0);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes a task file with synthetic tasks.
+     *
+     * @param filePath Path of the file to write.
+     * @param count    Number of tasks.
+     * @param format   Format of the file.
+     */
+    public static void generateFile(String filePath, int count, Storage.Format format) {
+        Storage storage = new Storage(filePath);
+        storage.setFormat(format);
+        storage.save(generateTasks(count, count));
+    }
+
+    /**
+     * Writes a task file from the command line, e.g. {@code TaskFileGenerator data/tasks.txt 100000 binary}.
+     *
+     * @param args Path of the file, number of tasks and optionally the format (text or binary).
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: TaskFileGenerator <file> <count> [text|binary]");
+            return;
+        }
+        Storage.Format format = args.length > 2 ? Storage.Format.valueOf(args[2].toUpperCase()) : Storage.Format.TEXT;
+        generateFile(args[0], Integer.parseInt(args[1]), format);
+    }
+}
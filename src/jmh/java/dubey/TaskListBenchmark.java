@@ -0,0 +1,83 @@
+package dubey;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures searching a task list and rendering it as text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskListBenchmark {
+    @Param({"1000", "100000"})
+    private int taskCount;
+
+    private TaskList taskList;
+    private List<Task> tasks;
+    private Ui ui;
+
+    /**
+     * Builds the task list and its indexes.
+     */
+    @Setup
+    public void setUp() {
+        tasks = TaskFileGenerator.generateTasks(taskCount, taskCount);
+        taskList = new TaskList(tasks);
+        ui = new Ui();
+    }
+
+    @Benchmark
+    public List<Task> findWord() {
+        return taskList.findTasks("report");
+    }
+
+    @Benchmark
+    public List<Task> findWords() {
+        return taskList.findTasks("submit report");
+    }
+
+    @Benchmark
+    public List<Task> findSubstring() {
+        return taskList.findTasks("eport");
+    }
+
+    @Benchmark
+    public List<Task> findMissing() {
+        return taskList.findTasks("holiday");
+    }
+
+    @Benchmark
+    public List<Task> findFuzzy() {
+        return taskList.findTasksFuzzy("reprot", 2);
+    }
+
+    @Benchmark
+    public String showTaskList() {
+        return ui.showTaskList(taskList.getTasks());
+    }
+
+    @Benchmark
+    public String showTaskPage() {
+        return ui.showTaskPage(taskList.getTasks(), taskCount / 100, 50);
+    }
+
+    @Benchmark
+    public void writeTaskList(Blackhole blackhole) throws IOException {
+        Writer out = Writer.nullWriter();
+        ui.writeTasks(taskList.getTasks(), 0, taskCount, out);
+        blackhole.consume(out);
+    }
+}
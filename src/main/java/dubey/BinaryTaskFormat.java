@@ -0,0 +1,164 @@
+package dubey;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a task snapshot.
+ * The file starts with the magic bytes {@code DUBY}, a version byte, the snapshot generation and the task count.
+ * Each task is then stored as a type tag byte, a flags byte, the task ID as a long, a length-prefixed UTF-8
+ * description and its type-specific fields: the epoch day of a deadline, or the length-prefixed start and end of an
+ * event. Version 1 files, written before tasks had IDs, lack the ID and are still read.
+ */
+final class BinaryTaskFormat {
+    private static final byte[] MAGIC = {'D', 'U', 'B', 'Y'};
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_IDS = 1;
+    private static final int FLAG_DONE = 1;
+
+    private BinaryTaskFormat() {
+    }
+
+    /**
+     * Checks whether a file starts with the binary format's magic bytes.
+     *
+     * @param path Path to the file.
+     * @return True if the file is a binary snapshot.
+     * @throws IOException if the file cannot be read.
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the given tasks.
+     *
+     * @param taskList   Tasks to write.
+     * @param generation Generation of the snapshot.
+     * @param out        Stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    public static void write(List<Task> taskList, long generation, DataOutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(generation);
+        out.writeInt(taskList.size());
+        for (Task task : taskList) {
+            writeTask(task, out);
+        }
+    }
+
+    private static void writeTask(Task task, DataOutputStream out) throws IOException {
+        if (task instanceof Todo) {
+            out.writeByte('T');
+        } else if (task instanceof Deadline) {
+            out.writeByte('D');
+        } else if (task instanceof Event) {
+            out.writeByte('E');
+        } else {
+            throw new RuntimeException("Unknown task type: " + task.getClass());
+        }
+        out.writeByte(task.isDone ? FLAG_DONE : 0);
+        out.writeLong(task.getId());
+        writeString(task.description, out);
+        if (task instanceof Deadline deadline) {
+            out.writeInt((int) deadline.by.toEpochDay());
+        } else if (task instanceof Event event) {
+            writeString(event.from, out);
+            writeString(event.to, out);
+        }
+    }
+
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a snapshot, appending its tasks to the given list.
+     *
+     * @param in       Stream positioned at the start of the snapshot.
+     * @param taskList List the tasks are appended to.
+     * @return Generation of the snapshot.
+     * @throws IOException if the stream is not a valid snapshot or cannot be read.
+     */
+    public static long read(DataInputStream in, List<Task> taskList) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a binary task file");
+        }
+        byte version = in.readByte();
+        if (version != VERSION && version != VERSION_WITHOUT_IDS) {
+            throw new IOException("Unsupported binary task file version: " + version);
+        }
+        long generation = in.readLong();
+        int count = in.readInt();
+
+        StringReader reader = new StringReader(in);
+        boolean hasIds = version != VERSION_WITHOUT_IDS;
+        for (int i = 0; i < count; i++) {
+            taskList.add(readTask(in, reader, hasIds));
+        }
+        return generation;
+    }
+
+    private static Task readTask(DataInputStream in, StringReader reader, boolean hasIds) throws IOException {
+        byte tag = in.readByte();
+        boolean isDone = (in.readByte() & FLAG_DONE) != 0;
+        long id = hasIds ? in.readLong() : 0;
+        String description = reader.read();
+        Task task;
+        switch (tag) {
+        case 'T':
+            task = new Todo(description);
+            break;
+        case 'D':
+            task = new Deadline(description, LocalDate.ofEpochDay(in.readInt()));
+            break;
+        case 'E':
+            task = new Event(description, reader.read(), reader.read());
+            break;
+        default:
+            throw new IOException("Unknown task tag in binary task file: " + tag);
+        }
+        task.setStatus(isDone);
+        task.setId(id);
+        return task;
+    }
+
+    /**
+     * Reads length-prefixed strings through a reusable byte buffer.
+     */
+    private static class StringReader {
+        private final DataInputStream in;
+        private byte[] buffer = new byte[256];
+
+        StringReader(DataInputStream in) {
+            this.in = in;
+        }
+
+        String read() throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Corrupt string length in binary task file: " + length);
+            }
+            if (length > buffer.length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            in.readFully(buffer, 0, length);
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package dubey;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.image.Image;
+
+/**
+ * List cell showing a chat message in a {@link DialogBox}. The list view only creates enough cells to fill the
+ * visible area and reuses them while scrolling, so each cell builds its dialog box once and refills it for whichever
+ * message it is currently showing.
+ */
+class ChatCell extends ListCell<Message> {
+    private static final double PENDING_OPACITY = 0.5;
+
+    private final DialogBox dialogBox = new DialogBox();
+    private final Image userImage;
+    private final Image dubeyImage;
+
+    /**
+     * Constructor for ChatCell Class.
+     *
+     * @param userImage  Picture shown next to the user's messages.
+     * @param dubeyImage Picture shown next to Dubey's messages.
+     */
+    public ChatCell(Image userImage, Image dubeyImage) {
+        this.userImage = userImage;
+        this.dubeyImage = dubeyImage;
+    }
+
+    @Override
+    protected void updateItem(Message message, boolean isEmpty) {
+        super.updateItem(message, isEmpty);
+        if (isEmpty || message == null) {
+            setGraphic(null);
+            return;
+        }
+        Image image = message.isFromUser() ? userImage : dubeyImage;
+        dialogBox.setMessage(message.getText(), image, message.isFromUser());
+        dialogBox.setOpacity(message.isPending() ? PENDING_OPACITY : 1.0);
+        setGraphic(dialogBox);
+    }
+}
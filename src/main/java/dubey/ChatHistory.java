@@ -0,0 +1,56 @@
+package dubey;
+
+import java.util.List;
+
+/**
+ * Keeps the messages of the chat within a size limit, dropping the oldest ones first, and swaps pending replies
+ * for the real ones once they arrive.
+ */
+final class ChatHistory {
+    private final List<Message> messages;
+    private final int maxSize;
+
+    /**
+     * Constructor for ChatHistory Class.
+     *
+     * @param messages List the messages are kept in, e.g. the items shown by a list view.
+     * @param maxSize  Number of messages kept.
+     */
+    public ChatHistory(List<Message> messages, int maxSize) {
+        assert maxSize > 0 : "History should keep at least one message";
+        this.messages = messages;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Appends messages, then drops the oldest ones beyond the size limit.
+     *
+     * @param newMessages The messages to append, in order.
+     */
+    public void add(Message... newMessages) {
+        messages.addAll(List.of(newMessages));
+        if (messages.size() > maxSize) {
+            messages.subList(0, messages.size() - maxSize).clear();
+        }
+    }
+
+    /**
+     * Replaces a pending reply with the real one. If the pending reply has already been dropped from the history,
+     * the real one is appended instead.
+     *
+     * @param pendingReply The placeholder shown while the command ran.
+     * @param reply        The reply to show.
+     */
+    public void replace(Message pendingReply, Message reply) {
+        int index = messages.indexOf(pendingReply);
+        if (index < 0) {
+            add(reply);
+            return;
+        }
+        messages.set(index, reply);
+    }
+
+    public int size() {
+        return messages.size();
+    }
+}
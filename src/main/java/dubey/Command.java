@@ -0,0 +1,286 @@
+package dubey;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Represents a parsed user command. Every argument is parsed once, when the command is created by
+ * {@link Parser#parse(String)}, and stored in a typed field; fields that do not apply to the command's type are
+ * null, -1 or false. Commands are immutable and can be executed any number of times.
+ */
+final class Command {
+    /**
+     * Kinds of commands understood by Dubey.
+     */
+    enum Type {
+        LIST, TODO, DEADLINE, EVENT, DELETE, MARK, UNMARK, FIND, DUE, BEFORE, OVERDUE, ON, BETWEEN, BATCH, STATS, USE,
+        MEMORY
+    }
+
+    /** Types of commands that only read the task list. */
+    private static final Set<Type> QUERIES = EnumSet.of(Type.LIST, Type.FIND, Type.DUE, Type.BEFORE, Type.OVERDUE,
+            Type.ON, Type.BETWEEN, Type.STATS, Type.MEMORY);
+
+    private final Type type;
+    private final String description;
+    private final String from;
+    private final String to;
+    private final LocalDate date;
+    private final LocalDate endDate;
+    private final int[] taskRanges;
+    private final boolean isBulk;
+    private final int fuzzyDistance;
+    private final boolean isPartial;
+    private final int page;
+    private final int pageSize;
+
+    private Command(Type type, String description, String from, String to, LocalDate date, LocalDate endDate,
+            int[] taskRanges, boolean isBulk, int fuzzyDistance, boolean isPartial, int page, int pageSize) {
+        this.type = type;
+        this.description = description;
+        this.from = from;
+        this.to = to;
+        this.date = date;
+        this.endDate = endDate;
+        this.taskRanges = taskRanges;
+        this.isBulk = isBulk;
+        this.fuzzyDistance = fuzzyDistance;
+        this.isPartial = isPartial;
+        this.page = page;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Creates a command without arguments, e.g. list or overdue.
+     *
+     * @param type Type of the command.
+     * @return The command.
+     */
+    static Command of(Type type) {
+        return new Command(type, null, null, null, null, null, null, false, -1, false, -1, -1);
+    }
+
+    /**
+     * Creates a list command showing one page of tasks.
+     *
+     * @param page     1-based page number.
+     * @param pageSize Number of tasks per page, or -1 to keep the current page size.
+     * @return The command.
+     */
+    static Command ofPage(int page, int pageSize) {
+        return new Command(Type.LIST, null, null, null, null, null, null, false, -1, false, page, pageSize);
+    }
+
+    /**
+     * Creates a command whose only argument is text, e.g. a todo description or a find keyword.
+     *
+     * @param type Type of the command.
+     * @param text The argument.
+     * @return The command.
+     */
+    static Command ofText(Type type, String text) {
+        return new Command(type, text, null, null, null, null, null, false, -1, false, -1, -1);
+    }
+
+    /**
+     * Creates a deadline command.
+     *
+     * @param description Description of the deadline.
+     * @param by          Date the deadline is due.
+     * @return The command.
+     */
+    static Command ofDeadline(String description, LocalDate by) {
+        return new Command(Type.DEADLINE, description, null, null, by, null, null, false, -1, false, -1, -1);
+    }
+
+    /**
+     * Creates an event command.
+     *
+     * @param description Description of the event.
+     * @param from        Start time of the event, as entered.
+     * @param to          End time of the event, as entered.
+     * @return The command.
+     */
+    static Command ofEvent(String description, String from, String to) {
+        return new Command(Type.EVENT, description, from, to, null, null, null, false, -1, false, -1, -1);
+    }
+
+    /**
+     * Creates a command whose only argument is a date, e.g. due or on.
+     *
+     * @param type Type of the command.
+     * @param date The date.
+     * @return The command.
+     */
+    static Command ofDate(Type type, LocalDate date) {
+        return new Command(type, null, null, null, date, null, null, false, -1, false, -1, -1);
+    }
+
+    /**
+     * Creates a between command.
+     *
+     * @param startDate First date of the range.
+     * @param endDate   Last date of the range.
+     * @return The command.
+     */
+    static Command ofDateRange(LocalDate startDate, LocalDate endDate) {
+        return new Command(Type.BETWEEN, null, null, null, startDate, endDate, null, false, -1, false, -1, -1);
+    }
+
+    /**
+     * Creates a delete, mark or unmark command selecting tasks by number.
+     *
+     * @param type        Type of the command.
+     * @param taskRanges Selected task numbers as pairs of the first and last number of each range, in ascending
+     *                   order without overlaps.
+     * @param isBulk     False if a single task number was given on its own.
+     * @return The command.
+     */
+    static Command ofSelection(Type type, int[] taskRanges, boolean isBulk) {
+        return new Command(type, null, null, null, null, null, taskRanges, isBulk, -1, false, -1, -1);
+    }
+
+    /**
+     * Creates a delete, mark or unmark command selecting every task that is done.
+     *
+     * @param type Type of the command.
+     * @return The command.
+     */
+    static Command ofDoneSelection(Type type) {
+        return new Command(type, null, null, null, null, null, null, true, -1, false, -1, -1);
+    }
+
+    /**
+     * Creates a fuzzy find command.
+     *
+     * @param keyword     Word to search for.
+     * @param maxDistance Maximum edit distance of a match.
+     * @return The command.
+     */
+    static Command ofFuzzyFind(String keyword, int maxDistance) {
+        return new Command(Type.FIND, keyword, null, null, null, null, null, false, maxDistance, false, -1, -1);
+    }
+
+    /**
+     * Creates a batch command.
+     *
+     * @param filePath  Path of the file listing the commands.
+     * @param isPartial True to skip failing commands instead of rolling back the batch.
+     * @return The command.
+     */
+    static Command ofBatch(String filePath, boolean isPartial) {
+        return new Command(Type.BATCH, filePath, null, null, null, null, null, false, -1, isPartial, -1, -1);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Checks if the command only reads the task list, so it may run alongside other commands.
+     *
+     * @return true for list, find, date queries, stats and memory.
+     */
+    public boolean isQuery() {
+        return QUERIES.contains(type);
+    }
+
+    /**
+     * Gets the text argument: the description of a task, the keyword of a find or the file path of a batch.
+     *
+     * @return The text argument.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Gets the date argument: the due date of a deadline, the date of a date query or the start of a range.
+     *
+     * @return The date.
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Gets the task number of a delete, mark or unmark command given a single task number.
+     *
+     * @return 1-based task number.
+     */
+    public int getTaskNumber() {
+        return taskRanges[0];
+    }
+
+    /**
+     * Gets the task numbers selected by a delete, mark or unmark command. Ranges are not expanded, so a selection
+     * such as {@code 1-2000000000} stays small until it is checked against the list.
+     *
+     * @return Pairs of the first and last 1-based task number of each range, in ascending order without
+     *         overlaps, or null if every task that is done is selected.
+     */
+    public int[] getTaskRanges() {
+        return taskRanges == null ? null : taskRanges.clone();
+    }
+
+    /**
+     * Checks if a delete, mark or unmark command was given a selection rather than a single task number.
+     *
+     * @return true for lists, ranges and {@code done}.
+     */
+    public boolean isBulk() {
+        return isBulk;
+    }
+
+    /**
+     * Checks if a delete, mark or unmark command selects every task that is done.
+     *
+     * @return true for {@code done}.
+     */
+    public boolean isDoneSelection() {
+        return isBulk && taskRanges == null;
+    }
+
+    /**
+     * Checks if a find command is a fuzzy search.
+     *
+     * @return true if the keyword was prefixed with '~'.
+     */
+    public boolean isFuzzy() {
+        return fuzzyDistance >= 0;
+    }
+
+    public int getFuzzyDistance() {
+        return fuzzyDistance;
+    }
+
+    public boolean isPartial() {
+        return isPartial;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Gets the page size requested by a list command.
+     *
+     * @return Number of tasks per page, or -1 if none was given.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,64 @@
+package dubey;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs commands on a background thread, one at a time and in the order they were submitted, so that a slow command
+ * does not block the thread that submitted it. Java 17 has no virtual threads, so one dedicated daemon thread is used.
+ */
+final class CommandRunner {
+    private final Function<String, String> handler;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dubey-commands");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructor for CommandRunner Class.
+     *
+     * @param handler Turns a command into its response, e.g. {@link Dubey#getResponse(String)}.
+     */
+    public CommandRunner(Function<String, String> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Queues a command behind those submitted before it.
+     *
+     * @param input      The command.
+     * @param onResponse Called with the response on the background thread once the command has run.
+     */
+    public void submit(String input, Consumer<String> onResponse) {
+        executor.execute(() -> onResponse.accept(handler.apply(input)));
+    }
+
+    /**
+     * Queues an action to run on the background thread once every command submitted so far has run.
+     *
+     * @param action The action.
+     */
+    public void runAfterQueued(Runnable action) {
+        executor.execute(action);
+    }
+
+    /**
+     * Stops accepting commands and waits for the queued ones to finish.
+     *
+     * @param timeoutSeconds Longest time to wait.
+     * @return True if every queued command finished in time.
+     */
+    public boolean shutdown(long timeoutSeconds) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
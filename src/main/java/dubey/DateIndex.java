@@ -0,0 +1,65 @@
+package dubey;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Sorted index of deadlines by due date, so date range queries only visit the matching tasks.
+ */
+class DateIndex {
+    private final TreeMap<LocalDate, LinkedHashSet<Task>> deadlines = new TreeMap<>();
+
+    /**
+     * Adds a task to the index if it is a deadline.
+     *
+     * @param task The task to index.
+     */
+    public void add(Task task) {
+        if (task instanceof Deadline deadline) {
+            deadlines.computeIfAbsent(deadline.by, key -> new LinkedHashSet<>()).add(task);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove.
+     */
+    public void remove(Task task) {
+        if (task instanceof Deadline deadline) {
+            Set<Task> tasks = deadlines.get(deadline.by);
+            if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+                deadlines.remove(deadline.by);
+            }
+        }
+    }
+
+    /**
+     * Finds the deadlines due on a date.
+     *
+     * @param date The due date.
+     * @return Matching deadlines in list order.
+     */
+    public List<Task> findOn(LocalDate date) {
+        Set<Task> tasks = deadlines.get(date);
+        return tasks == null ? new ArrayList<>() : new ArrayList<>(tasks);
+    }
+
+    /**
+     * Finds the deadlines due strictly before a date.
+     *
+     * @param date The exclusive upper bound.
+     * @return Matching deadlines, earliest first.
+     */
+    public List<Task> findBefore(LocalDate date) {
+        List<Task> matches = new ArrayList<>();
+        for (Set<Task> tasks : deadlines.headMap(date, false).values()) {
+            matches.addAll(tasks);
+        }
+        return matches;
+    }
+}
@@ -2,13 +2,18 @@ package dubey;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a task with a deadline.
+ * Deadlines tend to share a small set of dates, so formatted dates are cached and shared between them.
  */
 class Deadline extends Task {
     private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy");
+    private static final int MAX_FORMATTED_DATES = 4096;
+    private static final Map<LocalDate, String> FORMATTED_DATES = new ConcurrentHashMap<>();
     protected LocalDate by;
     /**
      * Constructor for Deadline Class.
@@ -21,8 +26,37 @@ class Deadline extends Task {
         this.by = LocalDate.parse(by, INPUT_FORMAT);
     }
 
+    /**
+     * Constructor for Deadline Class with an already parsed date.
+     *
+     * @param description Description of the task.
+     * @param by          Deadline for the task.
+     */
+    public Deadline(String description, LocalDate by) {
+        super(description);
+        this.by = by;
+    }
+
+    @Override
+    public void intern(Interner interner) {
+        super.intern(interner);
+        by = interner.intern(by);
+    }
+
     @Override
-    public String toString() {
-        return "[D]" + super.toString() + " (by: " + by.format(OUTPUT_FORMAT) + ")";
+    protected String render() {
+        return "[D]" + super.render() + " (by: " + formatDate(by) + ")";
+    }
+
+    private static String formatDate(LocalDate date) {
+        String formatted = FORMATTED_DATES.get(date);
+        if (formatted == null) {
+            if (FORMATTED_DATES.size() >= MAX_FORMATTED_DATES) {
+                FORMATTED_DATES.clear();
+            }
+            formatted = date.format(OUTPUT_FORMAT);
+            FORMATTED_DATES.put(date, formatted);
+        }
+        return formatted;
     }
 }
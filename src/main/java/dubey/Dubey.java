@@ -1,12 +1,39 @@
 package dubey;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
 /**
  * Main application class for Dubey.
+ * Commands may be sent from several threads at once: queries run in parallel against the task list, while commands
+ * that change it run one at a time, each together with the commit of its changes. Each user has a {@link Session}
+ * holding the list they are using, so several users can share one instance while working on different lists.
  */
 public class Dubey {
-    private final Storage storage;
-    private final TaskList taskList;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final TaskStores stores;
     private final Ui ui;
+    private final Metrics metrics = new Metrics();
+    /**
+     * Held while changing the task list and while committing, so journal records follow the order of changes, and
+     * while opening sessions and evicting lists, so a list is not evicted while a session is being given it.
+     */
+    private final Object changeLock = new Object();
+    /** Time spent rendering by the command running on each thread. */
+    private final ThreadLocal<long[]> renderNanos = ThreadLocal.withInitial(() -> new long[1]);
+    /** Session of the local user, used by the commands that do not name one. */
+    private final Session defaultSession;
+    /** Open sessions, whose lists are never evicted. */
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
 
     /**
      * Constructor for Dubey Class.
@@ -14,9 +41,45 @@ public class Dubey {
      * @param filePath Path to the file where tasks are stored.
      */
     public Dubey(String filePath) {
+        this(new Storage(filePath));
+    }
+
+    /**
+     * Constructor for Dubey Class using a pre-configured storage.
+     * Other lists switched to with {@code use} are stored next to its file with the same settings.
+     *
+     * @param storage Storage the tasks are loaded from and persisted to.
+     */
+    public Dubey(Storage storage) {
         this.ui = new Ui();
-        this.storage = new Storage(filePath);
-        this.taskList = new TaskList(storage.load());
+        storage.setMetrics(metrics);
+        this.stores = new TaskStores(storage, metrics);
+        this.defaultSession = openSession(true);
+    }
+
+    /**
+     * Opens a session for another user, starting on the default list.
+     *
+     * @param canReadFiles True if the user may run batch files. Users who are not on the machine Dubey runs on,
+     *                     such as clients of the server, must not, as it would let them read any file it can.
+     * @return The session.
+     */
+    public Session openSession(boolean canReadFiles) {
+        synchronized (changeLock) {
+            // Eviction also runs under the lock, so the list cannot be unloaded before the session holds it
+            Session session = new Session(stores.get(stores.getDefaultName()), DEFAULT_PAGE_SIZE, canReadFiles);
+            sessions.add(session);
+            return session;
+        }
+    }
+
+    /**
+     * Closes a session, after which its list may be evicted.
+     *
+     * @param session The session.
+     */
+    public void closeSession(Session session) {
+        sessions.remove(session);
     }
 
     /**
@@ -26,80 +89,435 @@ public class Dubey {
      * @return respective String output from input command
      */
     public String processCommand(String input) {
+        return processCommand(input, defaultSession);
+    }
+
+    private String processCommand(String input, Session session) {
+        return run(parse(input), session);
+    }
+
+    private String run(Command command, Session session) {
+        if (command.isQuery()) {
+            return execute(command, session);
+        }
+        synchronized (changeLock) {
+            return execute(command, session);
+        }
+    }
+
+    private Command parse(String input) {
         assert input != null : "User input should never be null";
         assert !input.trim().isEmpty() : "User input should not be empty after trimming";
-        Parser parsedInput = new Parser(input);
-        String command = parsedInput.getCommand();
-        switch (command) {
-        case "list":
-            return processList();
-        case "todo":
-            return processTodo(parsedInput);
-        case "deadline":
-            return processDeadline(parsedInput);
-        case "event":
-            return processEvent(parsedInput);
-        case "delete":
-            return processDelete(parsedInput);
-        case "mark":
-            return processMark(parsedInput);
-        case "unmark":
-            return processUnmark(parsedInput);
-        case "find":
-            return processFind(parsedInput);
+        long start = System.nanoTime();
+        Command command;
+        try {
+            command = Parser.parse(input);
+        } catch (IllegalArgumentException e) {
+            metrics.recordInvalidCommand();
+            throw e;
+        }
+        metrics.recordPhase(command.getType(), Metrics.Phase.PARSE, System.nanoTime() - start);
+        return command;
+    }
+
+    /**
+     * Runs a parsed command, recording the time spent rendering its response separately from the rest.
+     */
+    private String execute(Command command, Session session) {
+        long start = System.nanoTime();
+        long[] threadRenderNanos = renderNanos.get();
+        long renderNanosBefore = threadRenderNanos[0];
+        boolean isSuccessful = false;
+        try {
+            String response = dispatch(command, session);
+            isSuccessful = true;
+            return response;
+        } finally {
+            long commandRenderNanos = threadRenderNanos[0] - renderNanosBefore;
+            metrics.recordPhase(command.getType(), Metrics.Phase.EXECUTE,
+                    System.nanoTime() - start - commandRenderNanos);
+            if (isSuccessful) {
+                metrics.recordPhase(command.getType(), Metrics.Phase.RENDER, commandRenderNanos);
+            }
+            metrics.recordRun(command.getType(), isSuccessful);
+        }
+    }
+
+    private String dispatch(Command command, Session session) {
+        switch (command.getType()) {
+        case LIST:
+            return processList(command, session);
+        case TODO:
+            return processTodo(command, session);
+        case DEADLINE:
+            return processDeadline(command, session);
+        case EVENT:
+            return processEvent(command, session);
+        case DELETE:
+            return processDelete(command, session);
+        case MARK:
+            return processMark(command, session);
+        case UNMARK:
+            return processUnmark(command, session);
+        case FIND:
+            return processFind(command, session);
+        case DUE:
+            return processDue(command, session);
+        case BEFORE:
+            return processBefore(command, session);
+        case OVERDUE:
+            return processOverdue(session);
+        case ON:
+            return processOn(command, session);
+        case BETWEEN:
+            return processBetween(command, session);
+        case BATCH:
+            return processBatchFile(command, session);
+        case STATS:
+            return processStats();
+        case USE:
+            return processUse(command, session);
+        case MEMORY:
+            return processMemory(session);
         default:
-            throw new IllegalArgumentException("Unknown command: " + command);
+            throw new IllegalArgumentException("Unknown command: " + command.getType());
         }
     }
 
-    private String processList() {
-        return ui.showTaskList(taskList.getTasks());
+    private String processList(Command command, Session session) {
+        if (command.getPageSize() > 0) {
+            session.setPageSize(command.getPageSize());
+        }
+        List<Task> tasks = session.getTaskList().snapshot();
+        int page = command.getPage();
+        int size = session.getPageSize();
+        return render(() -> ui.showTaskPage(tasks, page, size));
     }
 
-    private String processTodo(Parser parsedInput) {
-        Task todo = new Todo(parsedInput.getDescription());
+    private String processTodo(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        Storage storage = session.getStorage();
+        Task todo = new Todo(command.getDescription());
         taskList.add(todo);
-        return ui.showTaskAdded(todo, taskList.getTasks().size());
+        storage.recordAdd(todo);
+        int size = taskList.size();
+        return render(() -> ui.showTaskAdded(todo, size));
     }
 
-    private String processDeadline(Parser parsedInput) {
-        System.out.println(parsedInput.getDeadlineDate());
-        Task deadline = new Deadline(parsedInput.getDeadlineDescription(), parsedInput.getDeadlineDate());
+    private String processDeadline(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        Storage storage = session.getStorage();
+        Task deadline = new Deadline(command.getDescription(), command.getDate());
         taskList.add(deadline);
-        return ui.showTaskAdded(deadline, taskList.getTasks().size());
+        storage.recordAdd(deadline);
+        int size = taskList.size();
+        return render(() -> ui.showTaskAdded(deadline, size));
     }
 
-    private String processEvent(Parser parsedInput) {
-        Task event = new Event(parsedInput.getEventDescription(), parsedInput.getEventFromDate(),
-                parsedInput.getEventToDate());
+    private String processEvent(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        Storage storage = session.getStorage();
+        Event event = new Event(command.getDescription(), command.getFrom(), command.getTo());
         taskList.add(event);
-        return ui.showTaskAdded(event, taskList.getTasks().size());
+        storage.recordAdd(event);
+        int size = taskList.size();
+        ArrayList<Task> clashes = taskList.findClashes(event);
+        return render(() -> {
+            String response = ui.showTaskAdded(event, size);
+            return clashes.isEmpty() ? response : response + "\n" + ui.showEventClashes(clashes);
+        });
     }
 
-    private String processDelete(Parser parsedInput) {
-        int index = parsedInput.getIndexNumber() - 1;
-        Task deletedTask = taskList.get(index);
-        taskList.delete(index);
-        return ui.showTaskDeleted(deletedTask, taskList.getTasks().size());
+    private String processDelete(Command command, Session session) {
+        if (command.isBulk()) {
+            return processBulkDelete(command, session);
+        }
+        TaskList taskList = session.getTaskList();
+        Storage storage = session.getStorage();
+        int index = selectIndex(command, taskList);
+        Task deletedTask = taskList.delete(index);
+        storage.recordDelete(deletedTask);
+        int size = taskList.size();
+        return render(() -> ui.showTaskDeleted(deletedTask, size));
+    }
+
+    private String processBulkDelete(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        Storage storage = session.getStorage();
+        int[] indices = selectIndices(command, taskList);
+        List<Task> deletedTasks = taskList.deleteAll(indices);
+        for (Task task : deletedTasks) {
+            storage.recordDelete(task);
+        }
+        int size = taskList.size();
+        return render(() -> ui.showTasksDeleted(deletedTasks, size));
     }
 
-    private String processMark(Parser parsedInput) {
-        int markIndex = parsedInput.getIndexNumber() - 1;
+    private String processMark(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        Storage storage = session.getStorage();
+        if (command.isBulk()) {
+            List<Task> markedTasks = setStatuses(selectIndices(command, taskList), true, session);
+            return render(() -> ui.showTasksMarked(markedTasks));
+        }
+        int markIndex = selectIndex(command, taskList);
         Task markedTask = taskList.get(markIndex);
-        markedTask.setStatus(true);
-        return ui.showTaskMarked(markedTask);
+        if (taskList.setStatus(markIndex, true)) {
+            storage.recordUpdate(markedTask);
+        }
+        return render(() -> ui.showTaskMarked(markedTask));
     }
 
-    private String processUnmark(Parser parsedInput) {
-        int unmarkIndex = parsedInput.getIndexNumber() - 1;
+    private String processUnmark(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        Storage storage = session.getStorage();
+        if (command.isBulk()) {
+            List<Task> unmarkedTasks = setStatuses(selectIndices(command, taskList), false, session);
+            return render(() -> ui.showTasksUnmarked(unmarkedTasks));
+        }
+        int unmarkIndex = selectIndex(command, taskList);
         Task unmarkedTask = taskList.get(unmarkIndex);
-        unmarkedTask.setStatus(false);
-        return ui.showTaskUnmarked(unmarkedTask);
+        if (taskList.setStatus(unmarkIndex, false)) {
+            storage.recordUpdate(unmarkedTask);
+        }
+        return render(() -> ui.showTaskUnmarked(unmarkedTask));
+    }
+
+    private int selectIndex(Command command, TaskList taskList) {
+        int number = command.getTaskNumber();
+        if (number > taskList.size()) {
+            throw new IllegalArgumentException("Task " + number + " is not in the list");
+        }
+        return number - 1;
+    }
+
+    /**
+     * Resolves the selection of a bulk delete, mark or unmark command to zero-based indices, checking every index
+     * before anything is changed.
+     */
+    private int[] selectIndices(Command command, TaskList taskList) {
+        if (command.isDoneSelection()) {
+            return taskList.getDoneIndices();
+        }
+        int[] ranges = command.getTaskRanges();
+        int size = taskList.size();
+        int count = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i + 1] > size) {
+                throw new IllegalArgumentException("Task " + Math.max(ranges[i], size + 1) + " is not in the list");
+            }
+            count += ranges[i + 1] - ranges[i] + 1;
+        }
+        // The ranges do not overlap and all lie within the list, so there are at most as many indices as tasks
+        int[] indices = new int[count];
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int number = ranges[i]; number <= ranges[i + 1]; number++) {
+                indices[next++] = number - 1;
+            }
+        }
+        return indices;
+    }
+
+    private List<Task> setStatuses(int[] indices, boolean isDone, Session session) {
+        TaskList taskList = session.getTaskList();
+        Storage storage = session.getStorage();
+        List<Task> changedTasks = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            Task task = taskList.get(index);
+            if (taskList.setStatus(index, isDone)) {
+                storage.recordUpdate(task);
+            }
+            changedTasks.add(task);
+        }
+        return changedTasks;
+    }
+
+    private String processFind(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        if (command.isFuzzy()) {
+            ArrayList<Task> matches = taskList.findTasksFuzzy(command.getDescription(), command.getFuzzyDistance());
+            return render(() -> ui.showTaskFind(matches));
+        }
+        String keyword = command.getDescription();
+        ArrayList<Task> matches = taskList.findTasks(keyword);
+        return render(() -> ui.showTaskFind(matches));
+    }
+
+    private String processDue(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        LocalDate date = command.getDate();
+        ArrayList<Task> tasks = taskList.findDueOn(date);
+        return render(() -> ui.showTasksDue(date, tasks));
+    }
+
+    private String processBefore(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        LocalDate date = command.getDate();
+        ArrayList<Task> tasks = taskList.findDueBefore(date);
+        return render(() -> ui.showTasksDueBefore(date, tasks));
+    }
+
+    private String processOverdue(Session session) {
+        TaskList taskList = session.getTaskList();
+        ArrayList<Task> tasks = taskList.findOverdue(LocalDate.now());
+        return render(() -> ui.showTasksOverdue(tasks));
+    }
+
+    private String processOn(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        LocalDate date = command.getDate();
+        ArrayList<Task> events = taskList.findEventsBetween(date, date);
+        return render(() -> ui.showEventsOn(date, events));
+    }
+
+    private String processBetween(Command command, Session session) {
+        TaskList taskList = session.getTaskList();
+        LocalDate from = command.getDate();
+        LocalDate to = command.getEndDate();
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The end date of the range is before its start date");
+        }
+        ArrayList<Task> events = taskList.findEventsBetween(from, to);
+        return render(() -> ui.showEventsBetween(from, to, events));
+    }
+
+    private String processBatchFile(Command command, Session session) {
+        if (!session.canReadFiles()) {
+            throw new IllegalArgumentException("Batch files can only be run from the machine Dubey runs on");
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(command.getDescription()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read batch file: " + e.getMessage());
+        }
+        List<String> inputs = new ArrayList<>();
+        for (String line : lines) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                inputs.add(line.trim());
+            }
+        }
+        return processBatch(inputs, !command.isPartial(), session);
+    }
+
+    /**
+     * Runs a sequence of commands without persisting between them.
+     * An atomic batch is rolled back entirely if any command fails; otherwise failing commands are skipped.
+     *
+     * @param inputs   The commands to run, in order.
+     * @param isAtomic True to apply either every command or none.
+     * @param session  Session the commands run in.
+     * @return Summary of the batch.
+     */
+    private String processBatch(List<String> inputs, boolean isAtomic, Session session) {
+        TaskList taskList = session.getTaskList();
+        Storage storage = session.getStorage();
+        if (session.isInBatch()) {
+            throw new IllegalArgumentException("Batches cannot be nested");
+        }
+        List<Task> tasksBefore = isAtomic ? new ArrayList<>(taskList.snapshot()) : null;
+        boolean[] statusesBefore = isAtomic ? new boolean[tasksBefore.size()] : null;
+        for (int i = 0; isAtomic && i < statusesBefore.length; i++) {
+            statusesBefore[i] = tasksBefore.get(i).isDone;
+        }
+
+        session.setInBatch(true);
+        storage.beginBatch();
+        List<String> failures = new ArrayList<>();
+        boolean isComplete = false;
+        try {
+            for (int i = 0; i < inputs.size(); i++) {
+                try {
+                    processCommand(inputs.get(i), session);
+                } catch (Exception e) {
+                    if (isAtomic) {
+                        throw new IllegalArgumentException(ui.showBatchAborted(i + 1, inputs.get(i), e.getMessage()));
+                    }
+                    failures.add(ui.showBatchFailure(i + 1, inputs.get(i), e.getMessage()));
+                }
+            }
+            isComplete = true;
+        } finally {
+            boolean isApplied = isComplete || !isAtomic;
+            if (!isApplied) {
+                rollback(tasksBefore, statusesBefore, session);
+            }
+            storage.endBatch(isApplied);
+            if (!isApplied) {
+                // A deferred save may still refer to the list the rollback replaced
+                storage.commit(session.getTaskList().getTasks());
+            }
+            session.setInBatch(false);
+        }
+        return render(() -> ui.showBatchResult(inputs.size(), failures));
+    }
+
+    private String processUse(Command command, Session session) {
+        String name = command.getDescription();
+        if (session.isInBatch()) {
+            throw new IllegalArgumentException("Lists cannot be switched inside a batch");
+        }
+        if (name.equals(session.getStore().getName())) {
+            int size = session.getTaskList().size();
+            return render(() -> ui.showListInUse(name, size));
+        }
+        boolean isLoaded = stores.isLoaded(name);
+        session.setStore(stores.get(name));
+        List<String> evicted = stores.evictOverBudget(getStoresInUse());
+        int size = session.getTaskList().size();
+        return render(() -> ui.showListSwitched(name, size, isLoaded, evicted));
+    }
+
+    private String processMemory(Session session) {
+        TaskList taskList = session.getTaskList();
+        String name = session.getStore().getName();
+        HeapFootprint footprint = HeapFootprint.measure(taskList.snapshot());
+        Interner interner = taskList.getInterner();
+        int pooledCount = interner == null ? -1 : interner.size();
+        Runtime runtime = Runtime.getRuntime();
+        long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+        return render(() -> ui.showMemory(name, footprint.report(), pooledCount, usedHeap, runtime.maxMemory()));
+    }
+
+    private String processStats() {
+        String report = metrics.report();
+        return render(() -> ui.showStats(report));
+    }
+
+    private String render(Supplier<String> renderer) {
+        long start = System.nanoTime();
+        String response = renderer.get();
+        renderNanos.get()[0] += System.nanoTime() - start;
+        return response;
+    }
+
+    private void rollback(List<Task> tasksBefore, boolean[] statusesBefore, Session session) {
+        for (int i = 0; i < statusesBefore.length; i++) {
+            tasksBefore.get(i).setStatus(statusesBefore[i]);
+        }
+        TaskStore store = session.getStore();
+        store.setTaskList(new TaskList(tasksBefore, store.getTaskList().getInterner()));
     }
 
-    private String processFind(Parser parsedInput) {
-        String keyword = parsedInput.getDescription();
-        return ui.showTaskFind(taskList.findTasks(keyword));
+    /**
+     * Runs a sequence of commands and persists the result once at the end.
+     *
+     * @param inputs   The commands to run, in order.
+     * @param isAtomic True to apply either every command or none, false to skip commands that fail.
+     * @return Summary of the batch, or the error that aborted it.
+     */
+    public String getBatchResponse(List<String> inputs, boolean isAtomic) {
+        synchronized (changeLock) {
+            try {
+                String response = processBatch(inputs, isAtomic, defaultSession);
+                commit(defaultSession);
+                stores.evictOverBudget(getStoresInUse());
+                return response;
+            } catch (Exception e) {
+                return "Error: " + e.getMessage();
+            }
+        }
     }
 
     /**
@@ -109,12 +527,95 @@ public class Dubey {
      * @return formatted respective String output from processCoammand()
      */
     public String getResponse(String input) {
+        return getResponse(input, defaultSession);
+    }
+
+    /**
+     * Runs a command for the user of a session, e.g. a client connected to the server.
+     *
+     * @param input   The user input command.
+     * @param session Session of the user, from {@link #openSession(boolean)}.
+     * @return Formatted output of the command, or the error it failed with.
+     */
+    public String getResponse(String input, Session session) {
         try {
-            String response = processCommand(input); // Process command
-            storage.save(taskList.getTasks());
+            Command command = parse(input);
+            String response;
+            long saveNanos;
+            if (command.isQuery()) {
+                response = execute(command, session);
+                metrics.recordSkippedSave();
+                saveNanos = -1;
+            } else {
+                synchronized (changeLock) {
+                    response = execute(command, session);
+                    saveNanos = commit(session);
+                    stores.evictOverBudget(getStoresInUse());
+                }
+            }
+            if (saveNanos >= 0) {
+                metrics.recordPhase(command.getType(), Metrics.Phase.SAVE, saveNanos);
+            }
             return "Processed: " + input + "\n" + response; // Modify this to return a meaningful response
         } catch (Exception e) {
             return "Error: " + e.getMessage();
         }
     }
+
+    /**
+     * Commits the changes made so far to the list of a session, unless it has not changed since the last commit.
+     *
+     * @return Time taken in nanoseconds, or -1 if the save was skipped.
+     */
+    private long commit(Session session) {
+        synchronized (changeLock) {
+            TaskList taskList = session.getTaskList();
+            if (!taskList.clearDirty()) {
+                metrics.recordSkippedSave();
+                return -1;
+            }
+            long start = System.nanoTime();
+            session.getStorage().commit(taskList.getTasks());
+            return System.nanoTime() - start;
+        }
+    }
+
+    private List<TaskStore> getStoresInUse() {
+        List<TaskStore> inUse = new ArrayList<>();
+        for (Session session : sessions) {
+            inUse.add(session.getStore());
+        }
+        return inUse;
+    }
+
+    /**
+     * Writes the whole task list to the given destination task by task, without building it up as one string.
+     *
+     * @param out Destination of the formatted list.
+     * @throws IOException if the destination cannot be written.
+     */
+    public void writeTaskList(Appendable out) throws IOException {
+        List<Task> tasks = defaultSession.getTaskList().snapshot();
+        ui.writeTasks(tasks, 0, tasks.size(), out);
+    }
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the estimated size that the lists kept in memory may take up together.
+     *
+     * @param memoryBudget Memory budget in bytes.
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        stores.setMemoryBudget(memoryBudget);
+    }
+
+    /**
+     * Flushes any pending writes and releases storage resources.
+     */
+    public void close() {
+        stores.close();
+        metrics.stopPeriodicDump();
+    }
 }
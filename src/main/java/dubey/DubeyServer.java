@@ -0,0 +1,204 @@
+package dubey;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves Dubey over a local socket so that several scripts and clients can share one task store.
+ *
+ * <p>The protocol is line based. Every line sent by a client is one command, answered with the response of
+ * {@link Dubey#getResponse(String)} followed by a line holding a single dot; response lines that start with a dot
+ * get a second one, as in SMTP. Clients may pipeline: commands are read and answered in order, and responses are
+ * flushed only once no further command is waiting, so a burst of commands is answered with one write. The command
+ * {@code bye} closes the connection.</p>
+ *
+ * <p>Each connection is served by a thread of its own and has a {@link Session} of its own, so the list it uses and
+ * its page size do not change with the commands of other connections. Queries from different connections run in
+ * parallel, while changes are serialized by {@link Dubey}. The {@code batch} command is refused, as it reads a file
+ * from the server's machine.</p>
+ */
+class DubeyServer {
+    static final String END_OF_RESPONSE = ".";
+    private static final int DEFAULT_PORT = 4588;
+    private static final String DEFAULT_FILE_PATH = "data/tasks.txt";
+
+    private final Dubey dubey;
+    private final Ui ui = new Ui();
+    private final ServerSocket serverSocket;
+    private final ExecutorService connectionExecutor;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private Thread acceptThread;
+
+    /**
+     * Constructor for DubeyServer Class. The server only accepts connections from the local machine.
+     *
+     * @param dubey Dubey instance answering the commands.
+     * @param port  Port to listen on, or 0 to pick any free port.
+     * @throws IOException if the port cannot be bound.
+     */
+    public DubeyServer(Dubey dubey, int port) throws IOException {
+        this.dubey = dubey;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.connectionExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dubey-connection-" + connectionCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     */
+    public synchronized void start() {
+        assert acceptThread == null : "Server should only be started once";
+        acceptThread = new Thread(this::acceptConnections, "dubey-server");
+        acceptThread.start();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                connectionExecutor.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                // The server socket was closed by close()
+                return;
+            } catch (IOException e) {
+                System.out.println("An error occurred while accepting a connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        // Clients may not run batch files, which would let them read any file the server can
+        Session session = dubey.openSession(false);
+        try (socket;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String input = line.trim();
+                if (input.equalsIgnoreCase("bye")) {
+                    writeResponse(ui.showGoodbyeMessage(), out);
+                    break;
+                }
+                writeResponse(input.isEmpty() ? "Error: Empty command" : dubey.getResponse(input, session), out);
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // The client went away; nothing is left to answer
+        } finally {
+            dubey.closeSession(session);
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Writes a response framed for the protocol: dot-stuffed lines followed by the end-of-response line.
+     *
+     * @param response The response text.
+     * @param out      Destination of the framed response.
+     * @throws IOException if the destination cannot be written.
+     */
+    static void writeResponse(String response, Writer out) throws IOException {
+        int start = 0;
+        while (start < response.length()) {
+            int end = response.indexOf('\n', start);
+            end = end < 0 ? response.length() : end;
+            if (response.startsWith(END_OF_RESPONSE, start)) {
+                out.write('.');
+            }
+            out.write(response, start, end - start);
+            out.write('\n');
+            start = end + 1;
+        }
+        out.write(END_OF_RESPONSE);
+        out.write('\n');
+    }
+
+    /**
+     * Reads one framed response, undoing the dot-stuffing.
+     *
+     * @param in Source of the framed response.
+     * @return The response text, or null if the connection was closed first.
+     * @throws IOException if the source cannot be read.
+     */
+    static String readResponse(BufferedReader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(END_OF_RESPONSE)) {
+                return sb.toString();
+            }
+            sb.append(line.startsWith(END_OF_RESPONSE) ? line.substring(1) : line).append('\n');
+        }
+        return null;
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     */
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.out.println("An error occurred while closing the server: " + e.getMessage());
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed by the client
+            }
+        }
+        connectionExecutor.shutdown();
+    }
+
+    /**
+     * Runs Dubey as a headless server until the process is stopped.
+     *
+     * @param args Optional port, default 4588, and optional task file, default {@code data/tasks.txt}.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Storage storage = new Storage(args.length > 1 ? args[1] : DEFAULT_FILE_PATH);
+        storage.setJournaled(true);
+        storage.setGroupCommitLatency(200);
+        Dubey dubey = new Dubey(storage);
+
+        DubeyServer server = new DubeyServer(dubey, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            dubey.close();
+        }));
+        server.start();
+        System.out.println("Dubey is listening on " + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                + server.getPort());
+    }
+}
@@ -1,11 +1,28 @@
 package dubey;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
 /**
  * Represents an event task with a start and end time.
+ * The times are kept as entered, and are additionally parsed into an interval when they are in yyyy-MM-dd,
+ * yyyy-MM-dd HHmm or yyyy-MM-dd HH:mm format. The end may also be just a time on the start's date.
  */
 class Event extends Task {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final List<DateTimeFormatter> DATE_TIME_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+    private static final List<DateTimeFormatter> TIME_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("HHmm"), DateTimeFormatter.ofPattern("HH:mm"));
+
     protected String from;
     protected String to;
+    protected LocalDateTime start;
+    protected LocalDateTime end;
 
     /**
      * Constructor for Event Class.
@@ -18,10 +35,73 @@ class Event extends Task {
         super(description);
         this.from = from;
         this.to = to;
+        parseInterval();
+    }
+
+    private void parseInterval() {
+        LocalDateTime parsedStart = parseDateTime(from.trim(), false);
+        if (parsedStart == null) {
+            return;
+        }
+        LocalDateTime parsedEnd = parseDateTime(to.trim(), true);
+        if (parsedEnd == null) {
+            LocalTime endTime = parseTime(to.trim());
+            parsedEnd = endTime == null ? null : parsedStart.toLocalDate().atTime(endTime);
+        }
+        if (parsedEnd != null && parsedEnd.isAfter(parsedStart)) {
+            start = parsedStart;
+            end = parsedEnd;
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String text, boolean isEnd) {
+        for (DateTimeFormatter format : DATE_TIME_FORMATS) {
+            try {
+                return LocalDateTime.parse(text, format);
+            } catch (DateTimeParseException e) {
+                // Try the next format
+            }
+        }
+        try {
+            LocalDate date = LocalDate.parse(text, DATE_FORMAT);
+            // A bare end date includes the whole of that day
+            return isEnd ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static LocalTime parseTime(String text) {
+        for (DateTimeFormatter format : TIME_FORMATS) {
+            try {
+                return LocalTime.parse(text, format);
+            } catch (DateTimeParseException e) {
+                // Try the next format
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the start and end of the event could be parsed into an interval.
+     *
+     * @return true if {@link #start} and {@link #end} are set.
+     */
+    public boolean hasInterval() {
+        return start != null;
+    }
+
+    @Override
+    public void intern(Interner interner) {
+        super.intern(interner);
+        from = interner.intern(from);
+        to = interner.intern(to);
+        start = interner.intern(start);
+        end = interner.intern(end);
     }
 
     @Override
-    public String toString() {
-        return "[E]" + super.toString() + " (from: " + from + " to: " + to + ")";
+    protected String render() {
+        return "[E]" + super.render() + " (from: " + from + " to: " + to + ")";
     }
 }
@@ -0,0 +1,71 @@
+package dubey;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces bursts of commit requests into a single flush on a background thread.
+ * A flush runs at most {@code maxLatencyMillis} after the first request that follows the previous flush.
+ */
+class GroupCommitter {
+    private final ScheduledExecutorService scheduler;
+    private final Runnable flushAction;
+    private final long maxLatencyMillis;
+    private final AtomicBoolean isScheduled = new AtomicBoolean();
+    private volatile ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Constructor for GroupCommitter Class.
+     *
+     * @param flushAction      Action that writes out everything committed so far.
+     * @param maxLatencyMillis Upper bound on how long a commit may wait before it is flushed.
+     */
+    public GroupCommitter(Runnable flushAction, long maxLatencyMillis) {
+        assert maxLatencyMillis >= 0 : "Latency bound should not be negative";
+        this.flushAction = flushAction;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dubey-group-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Requests a flush. Requests made while a flush is already scheduled are folded into it.
+     */
+    public void requestFlush() {
+        if (isScheduled.compareAndSet(false, true)) {
+            scheduledFlush = scheduler.schedule(this::runFlush, maxLatencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runFlush() {
+        isScheduled.set(false);
+        try {
+            flushAction.run();
+        } catch (RuntimeException e) {
+            System.out.println("An error occurred during group commit: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the background thread. A flush that is scheduled but has not started yet is run straight away on the
+     * calling thread rather than waited for; one that has started is waited for.
+     */
+    public void shutdown() {
+        ScheduledFuture<?> flush = scheduledFlush;
+        if (flush != null && flush.cancel(false)) {
+            runFlush();
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(maxLatencyMillis + 5000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
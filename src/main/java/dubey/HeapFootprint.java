@@ -0,0 +1,135 @@
+package dubey;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Estimates the heap taken up by a list of tasks. Objects are sized as on a 64-bit JVM with compressed references:
+ * 12-byte headers, 4-byte references and sizes rounded up to 8 bytes. Strings and dates are counted once per
+ * instance, so values shared through an {@link Interner} are only counted once, and the report also shows what the
+ * text would take if every field had its own copy. The search indexes of the list are not included.
+ */
+final class HeapFootprint {
+    private static final int TODO_BYTES = 32;
+    private static final int DEADLINE_BYTES = 40;
+    private static final int EVENT_BYTES = 48;
+    private static final int LOCAL_DATE_BYTES = 24;
+    /** A LocalDateTime together with the LocalDate and LocalTime it holds. */
+    private static final int LOCAL_DATE_TIME_BYTES = 72;
+
+    private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long taskCount;
+    private long taskBytes;
+    private long stringCount;
+    private long stringBytes;
+    private long unsharedStringBytes;
+    private long dateCount;
+    private long dateBytes;
+    private long lineCount;
+    private long lineBytes;
+
+    private HeapFootprint() {
+    }
+
+    /**
+     * Measures a list of tasks.
+     *
+     * @param tasks The tasks.
+     * @return The measurements.
+     */
+    public static HeapFootprint measure(List<Task> tasks) {
+        HeapFootprint footprint = new HeapFootprint();
+        for (Task task : tasks) {
+            footprint.add(task);
+        }
+        return footprint;
+    }
+
+    private void add(Task task) {
+        taskCount++;
+        addText(task.description);
+        if (task instanceof Deadline deadline) {
+            taskBytes += DEADLINE_BYTES;
+            addDate(deadline.by, LOCAL_DATE_BYTES);
+        } else if (task instanceof Event event) {
+            taskBytes += EVENT_BYTES;
+            addText(event.from);
+            addText(event.to);
+            addDate(event.start, LOCAL_DATE_TIME_BYTES);
+            addDate(event.end, LOCAL_DATE_TIME_BYTES);
+        } else {
+            taskBytes += TODO_BYTES;
+        }
+        String line = task.getCachedLine();
+        if (line != null) {
+            lineCount++;
+            lineBytes += sizeOf(line);
+        }
+    }
+
+    private void addText(String text) {
+        long size = sizeOf(text);
+        unsharedStringBytes += size;
+        if (seen.add(text)) {
+            stringCount++;
+            stringBytes += size;
+        }
+    }
+
+    private void addDate(Object date, int size) {
+        if (date != null && seen.add(date)) {
+            dateCount++;
+            dateBytes += size;
+        }
+    }
+
+    /**
+     * Estimates the size of a string: the String object plus its byte array, which holds one byte per character
+     * unless a character needs two.
+     */
+    private static long sizeOf(String text) {
+        boolean isLatin1 = true;
+        for (int i = 0; i < text.length() && isLatin1; i++) {
+            isLatin1 = text.charAt(i) < 256;
+        }
+        long arrayBytes = 16 + (long) text.length() * (isLatin1 ? 1 : 2);
+        return 24 + (arrayBytes + 7) / 8 * 8;
+    }
+
+    public long getTotalBytes() {
+        return taskBytes + stringBytes + dateBytes + lineBytes;
+    }
+
+    /**
+     * Formats the measurements.
+     *
+     * @return One line per kind of object, then the total.
+     */
+    public String report() {
+        return "tasks: " + taskCount + ", " + formatBytes(taskBytes) + "\n"
+                + "text: " + stringCount + " strings, " + formatBytes(stringBytes) + " ("
+                + formatBytes(unsharedStringBytes) + " if not shared)\n"
+                + "dates: " + dateCount + " objects, " + formatBytes(dateBytes) + "\n"
+                + "cached lines: " + lineCount + ", " + formatBytes(lineBytes) + "\n"
+                + "total without indexes: about " + formatBytes(getTotalBytes()) + "\n";
+    }
+
+    /**
+     * Formats a size with a unit that keeps it short, e.g. {@code 512 B}, {@code 3.4 KB} or {@code 12.0 MB}.
+     *
+     * @param bytes Size in bytes.
+     * @return The formatted size.
+     */
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        } else if (bytes < 1024L * 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        }
+        return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+}
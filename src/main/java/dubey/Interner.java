@@ -0,0 +1,44 @@
+package dubey;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Pool of immutable values, such as strings and dates, that makes equal values share one instance.
+ * Values are held weakly, so a value drops out of the pool once no task refers to it any more. Every pooled value
+ * costs a map entry, so interning only saves memory when values repeat.
+ */
+class Interner {
+    private final Map<Object, WeakReference<Object>> pool = new WeakHashMap<>();
+
+    /**
+     * Returns the pooled instance equal to a value, adding the value to the pool if there is none.
+     *
+     * @param value The value, or null.
+     * @param <T>   Type of the value.
+     * @return The pooled instance, or null if the value is null.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T intern(T value) {
+        if (value == null) {
+            return null;
+        }
+        WeakReference<Object> reference = pool.get(value);
+        Object pooled = reference == null ? null : reference.get();
+        if (pooled != null) {
+            return (T) pooled;
+        }
+        pool.put(value, new WeakReference<>(value));
+        return value;
+    }
+
+    /**
+     * Gets the number of values in the pool, including any that are about to be dropped.
+     *
+     * @return Number of pooled values.
+     */
+    public synchronized int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,177 @@
+package dubey;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Interval tree over the events whose times could be parsed, answering "which events overlap this period"
+ * in expected O(log N + k). Implemented as a treap ordered by start time, where every node also records the
+ * latest end time in its subtree so that subtrees ending before the query period can be skipped.
+ */
+class IntervalIndex {
+    private final Map<Event, Node> nodes = new IdentityHashMap<>();
+    private final Random random = new Random();
+    private long nextSequence;
+    private Node root;
+
+    /**
+     * A node of the treap. Nodes with equal start times are ordered by insertion sequence.
+     */
+    private static class Node {
+        private final Event event;
+        private final long sequence;
+        private final int priority;
+        private LocalDateTime maxEnd;
+        private Node left;
+        private Node right;
+
+        Node(Event event, long sequence, int priority) {
+            this.event = event;
+            this.sequence = sequence;
+            this.priority = priority;
+            this.maxEnd = event.end;
+        }
+
+        int compareTo(Node other) {
+            int byStart = event.start.compareTo(other.event.start);
+            return byStart != 0 ? byStart : Long.compare(sequence, other.sequence);
+        }
+
+        void update() {
+            maxEnd = event.end;
+            if (left != null && left.maxEnd.isAfter(maxEnd)) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd.isAfter(maxEnd)) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+
+    /**
+     * Adds a task to the index if it is an event with a parsed interval.
+     *
+     * @param task The task to index.
+     */
+    public void add(Task task) {
+        if (task instanceof Event event && event.hasInterval()) {
+            Node node = new Node(event, nextSequence++, random.nextInt());
+            nodes.put(event, node);
+            root = insert(root, node);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove.
+     */
+    public void remove(Task task) {
+        if (task instanceof Event event) {
+            Node node = nodes.remove(event);
+            if (node != null) {
+                root = delete(root, node);
+            }
+        }
+    }
+
+    /**
+     * Finds the events overlapping the half-open period {@code [start, end)}.
+     *
+     * @param start Start of the period.
+     * @param end   End of the period.
+     * @return Overlapping events ordered by start time.
+     */
+    public List<Event> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<Event> matches = new ArrayList<>();
+        collect(root, start, end, matches);
+        return matches;
+    }
+
+    private static void collect(Node node, LocalDateTime start, LocalDateTime end, List<Event> matches) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return;
+        }
+        collect(node.left, start, end, matches);
+        if (node.event.start.isBefore(end)) {
+            if (node.event.end.isAfter(start)) {
+                matches.add(node.event);
+            }
+            collect(node.right, start, end, matches);
+        }
+    }
+
+    private static Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        if (node.compareTo(root) < 0) {
+            root.left = insert(root.left, node);
+            if (root.left.priority > root.priority) {
+                root = rotateRight(root);
+            }
+        } else {
+            root.right = insert(root.right, node);
+            if (root.right.priority > root.priority) {
+                root = rotateLeft(root);
+            }
+        }
+        root.update();
+        return root;
+    }
+
+    private static Node delete(Node root, Node node) {
+        if (root == null) {
+            return null;
+        }
+        if (root == node) {
+            return merge(root.left, root.right);
+        }
+        if (node.compareTo(root) < 0) {
+            root.left = delete(root.left, node);
+        } else {
+            root.right = delete(root.right, node);
+        }
+        root.update();
+        return root;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+}
@@ -0,0 +1,184 @@
+package dubey;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of task mutations that sits next to the task file.
+ * The first line of the journal is a generation header which ties it to the snapshot it applies to.
+ */
+class Journal {
+    private static final String HEADER_PREFIX = "G|";
+
+    private final Path path;
+    private final StringBuilder pending = new StringBuilder();
+    private FileChannel channel;
+    private int recordCount;
+
+    /**
+     * Constructor for Journal Class.
+     *
+     * @param filePath Path to the journal file.
+     */
+    public Journal(String filePath) {
+        this.path = Paths.get(filePath);
+    }
+
+    /**
+     * Queues a record to be written on the next {@link #sync()}.
+     *
+     * @param record The record to append, without a trailing newline.
+     */
+    public void append(String record) {
+        assert record.indexOf('\n') < 0 : "Journal records must fit on a single line";
+        pending.append(record).append('\n');
+        recordCount++;
+    }
+
+    /**
+     * Writes all queued records in a single append and forces them to disk.
+     *
+     * @throws IOException if the journal cannot be written.
+     */
+    public void sync() throws IOException {
+        if (pending.length() == 0) {
+            return;
+        }
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        pending.setLength(0);
+    }
+
+    /**
+     * Reads the complete records of the journal if it belongs to the given snapshot generation.
+     * A trailing partial record left behind by a crash is cut off the file, so that the next append starts on a
+     * line of its own instead of being glued onto the fragment.
+     *
+     * @param generation Generation of the snapshot the records should apply to.
+     * @return The records in the order they were appended, or an empty list if there is nothing to replay.
+     * @throws IOException if the journal cannot be read or truncated.
+     */
+    public List<String> readRecords(long generation) throws IOException {
+        List<String> records = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return records;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        int length = bytes.length;
+        while (length > 0 && bytes[length - 1] != '\n') {
+            length--;
+        }
+        if (length < bytes.length) {
+            truncate(length);
+        }
+        String content = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        int end = content.indexOf('\n');
+        if (end < 0 || !content.substring(0, end).equals(HEADER_PREFIX + generation)) {
+            return records;
+        }
+        int start = end + 1;
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            records.add(content.substring(start, end));
+            start = end + 1;
+        }
+        recordCount = records.size();
+        return records;
+    }
+
+    /**
+     * Cuts the journal after the given number of records, e.g. to drop a corrupt record and everything after it.
+     *
+     * @param count Number of records to keep.
+     * @throws IOException if the journal cannot be read or truncated.
+     */
+    public void truncateRecords(int count) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        int length = 0;
+        int lineCount = 0;
+        // The header line comes before the records
+        while (length < bytes.length && lineCount <= count) {
+            if (bytes[length++] == '\n') {
+                lineCount++;
+            }
+        }
+        truncate(length);
+        recordCount = count;
+    }
+
+    private void truncate(long size) throws IOException {
+        close();
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            file.truncate(size);
+            file.force(true);
+        }
+    }
+
+    /**
+     * Discards every record and starts a fresh journal for the given snapshot generation.
+     *
+     * @param generation Generation of the snapshot the journal now applies to.
+     * @throws IOException if the journal cannot be rewritten.
+     */
+    public void reset(long generation) throws IOException {
+        close();
+        pending.setLength(0);
+        recordCount = 0;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.write(ByteBuffer.wrap((HEADER_PREFIX + generation + "\n").getBytes(StandardCharsets.UTF_8)));
+        channel.force(true);
+        channel.close();
+        channel = null;
+    }
+
+    /**
+     * Deletes the journal file, e.g. after a full snapshot has made it obsolete.
+     *
+     * @throws IOException if the file cannot be deleted.
+     */
+    public void delete() throws IOException {
+        close();
+        pending.setLength(0);
+        recordCount = 0;
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Gets the number of records written since the last reset.
+     *
+     * @return The record count.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Closes the underlying file channel, if open.
+     */
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("An error occurred while closing the journal: " + e.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,191 @@
+package dubey;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from the lower-cased words of task descriptions to the tasks containing them.
+ * Posting lists keep insertion order, which matches list order because tasks are only ever appended.
+ * The vocabulary itself is trigram-indexed so that words within a small edit distance can be found quickly.
+ */
+class KeywordIndex {
+    private final Map<String, LinkedHashSet<Task>> postings = new HashMap<>();
+    private final TrigramIndex<String> vocabulary = new TrigramIndex<>();
+
+    /**
+     * Splits text into lower-cased runs of letters and digits.
+     *
+     * @param text The text to split.
+     * @return The tokens in order of appearance, possibly with duplicates.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Adds a task to the posting list of every word in its description.
+     *
+     * @param task The task to index.
+     */
+    public void add(Task task) {
+        for (String token : tokenize(task.description)) {
+            postings.computeIfAbsent(token, key -> {
+                vocabulary.add(key, pad(key));
+                return new LinkedHashSet<>();
+            }).add(task);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove.
+     */
+    public void remove(Task task) {
+        for (String token : tokenize(task.description)) {
+            Set<Task> tasks = postings.get(token);
+            if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+                postings.remove(token);
+                vocabulary.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain every given word.
+     *
+     * @param tokens Lower-cased words, as produced by {@link #tokenize(String)}.
+     * @return Matching tasks in list order. Empty if there are no tokens or no task has all of them.
+     */
+    public List<Task> findAll(List<String> tokens) {
+        List<Set<Task>> lists = new ArrayList<>();
+        Set<Task> smallest = null;
+        for (String token : tokens) {
+            Set<Task> tasks = postings.get(token);
+            if (tasks == null) {
+                return new ArrayList<>();
+            }
+            lists.add(tasks);
+            if (smallest == null || tasks.size() < smallest.size()) {
+                smallest = tasks;
+            }
+        }
+
+        List<Task> matches = new ArrayList<>();
+        if (smallest == null) {
+            return matches;
+        }
+        for (Task task : smallest) {
+            if (containsInAll(lists, task)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the tasks containing a word within the given edit distance of the query word.
+     * Candidate words are narrowed down by the number of trigrams they share with the query: a word within edit
+     * distance k of a query with n distinct trigrams shares at least n - 3k of them. Words are padded at both ends
+     * so that even short words have enough trigrams for this bound to be useful.
+     *
+     * @param word        Lower-cased query word.
+     * @param maxDistance Maximum number of single-character insertions, deletions or substitutions.
+     * @return Matching tasks, closest words first.
+     */
+    public Set<Task> findFuzzy(String word, int maxDistance) {
+        String paddedWord = pad(word);
+        int minShared = TrigramIndex.trigrams(paddedWord).length - 3 * maxDistance;
+        List<String> candidates;
+        if (minShared > 0) {
+            candidates = new ArrayList<>();
+            vocabulary.countShared(paddedWord).forEach((token, shared) -> {
+                if (shared >= minShared) {
+                    candidates.add(token);
+                }
+            });
+        } else {
+            candidates = new ArrayList<>(postings.keySet());
+        }
+
+        Map<String, Integer> distances = new HashMap<>();
+        for (String token : candidates) {
+            if (Math.abs(token.length() - word.length()) > maxDistance) {
+                continue;
+            }
+            int distance = editDistance(word, token, maxDistance);
+            if (distance <= maxDistance) {
+                distances.put(token, distance);
+            }
+        }
+
+        List<String> matchedTokens = new ArrayList<>(distances.keySet());
+        matchedTokens.sort(Comparator.comparing((String token) -> distances.get(token)).thenComparing(token -> token));
+        Set<Task> matches = new LinkedHashSet<>();
+        for (String token : matchedTokens) {
+            matches.addAll(postings.get(token));
+        }
+        return matches;
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings, giving up once it exceeds a bound.
+     *
+     * @param a     First string.
+     * @param b     Second string.
+     * @param bound Largest distance of interest.
+     * @return The edit distance, or {@code bound + 1} if it is larger than the bound.
+     */
+    static int editDistance(String a, String b, int bound) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], bound + 1);
+    }
+
+    private static String pad(String token) {
+        return "\u0002\u0002" + token + "\u0003\u0003";
+    }
+
+    private static boolean containsInAll(List<Set<Task>> lists, Task task) {
+        for (Set<Task> tasks : lists) {
+            if (!tasks.contains(task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
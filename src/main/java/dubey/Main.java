@@ -1,6 +1,7 @@
 package dubey;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -13,21 +14,53 @@ import javafx.stage.Stage;
  */
 public class Main extends Application {
 
-    private Dubey dubey = new Dubey("data/tasks.txt");
+    private static final long DEFAULT_METRICS_INTERVAL_MILLIS = 60_000;
+
+    private Dubey dubey = new Dubey(createStorage());
+    private MainWindow mainWindow;
+
+    private static Storage createStorage() {
+        Storage storage = new Storage("data/tasks.txt");
+        storage.setJournaled(true);
+        storage.setGroupCommitLatency(200);
+        return storage;
+    }
+
+    /**
+     * Starts dumping metrics periodically if a file is given with {@code -Ddubey.metrics.file=<path>}. The interval
+     * defaults to a minute and can be changed with {@code -Ddubey.metrics.interval=<milliseconds>}.
+     */
+    private void startMetricsDump() {
+        String metricsFile = System.getProperty("dubey.metrics.file");
+        if (metricsFile != null) {
+            long interval = Long.getLong("dubey.metrics.interval", DEFAULT_METRICS_INTERVAL_MILLIS);
+            dubey.getMetrics().startPeriodicDump(Paths.get(metricsFile), interval);
+        }
+    }
 
     @Override
     public void start(Stage stage) {
         assert stage != null : "Stage should be initialized before use";
+        startMetricsDump();
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("/view/MainWindow.fxml"));
             AnchorPane ap = fxmlLoader.load();
             Scene scene = new Scene(ap);
             stage.setTitle("Dubey");
             stage.setScene(scene);
-            fxmlLoader.<MainWindow>getController().setDuke(dubey); // inject the Duke instance
+            mainWindow = fxmlLoader.getController();
+            mainWindow.setDuke(dubey); // inject the Duke instance
             stage.show();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        if (mainWindow != null) {
+            mainWindow.shutdown();
+        }
+        dubey.close();
+    }
 }
@@ -1,14 +1,16 @@
 package dubey;
 
 import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.Control;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
@@ -16,18 +18,23 @@ import javafx.util.Duration;
  * Controller for the Main GUI.
  */
 public class MainWindow extends AnchorPane {
+    /** Number of messages kept in the chat; older ones are dropped. */
+    private static final int MAX_HISTORY = 1000;
+    /** Room left for the list view's vertical scroll bar. */
+    private static final double SCROLL_BAR_WIDTH = 20.0;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<Message> dialogList;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
-    @FXML
-    private TextArea chatArea;
-    @FXML
-    private TextField inputField;
+
+    private final ObservableList<Message> messages = FXCollections.observableArrayList();
+    private final ChatHistory history = new ChatHistory(messages, MAX_HISTORY);
+    /** Runs commands one at a time, in the order they were entered, away from the JavaFX application thread. */
+    private final CommandRunner commandRunner = new CommandRunner(input -> dubey.getResponse(input));
 
     private Dubey dubey;
     private final Ui ui = new Ui();
@@ -37,14 +44,20 @@ public class MainWindow extends AnchorPane {
 
     /**
      * Initializes the JavaFX components when the controller is loaded with a welcome message from Duke to the dialog
-     * container. Binds the scroll pane's vertical scroll value to the height of the dialog container, ensuring
-     * automatic scrolling as new messages are added.
+     * list. The list view only lays out the messages that are visible, reusing its cells as it scrolls, and cells are
+     * sized to the width of the list so that long messages wrap.
      *
      */
     @FXML
     public void initialize() {
-        dialogContainer.getChildren().add(DialogBox.getDukeDialog(ui.showWelcomeMessage(), dukeImage));
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        dialogList.setItems(messages);
+        dialogList.setCellFactory(listView -> {
+            ChatCell cell = new ChatCell(userImage, dukeImage);
+            cell.prefWidthProperty().bind(listView.widthProperty().subtract(SCROLL_BAR_WIDTH));
+            cell.setMaxWidth(Control.USE_PREF_SIZE);
+            return cell;
+        });
+        addMessages(new Message(ui.showWelcomeMessage(), false));
     }
 
     /**
@@ -57,9 +70,10 @@ public class MainWindow extends AnchorPane {
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Dubey's reply and then appends them to
-     * the dialog container. Clears the user input after processing. If input 'bye' is read, application terminates
-     * after a delay of 2 seconds to show the Goodbye Message.
+     * Echoes the user input in the dialog list together with a pending reply, and runs the command in the
+     * background. The pending reply is replaced by Dubey's response once the command is done; commands entered in
+     * the meantime queue up behind it. Clears the user input straight away. If input 'bye' is read, application
+     * terminates after a delay of 2 seconds to show the Goodbye Message.
      */
     @FXML
     private void handleUserInput() {
@@ -67,24 +81,26 @@ public class MainWindow extends AnchorPane {
         if (input.isEmpty()) {
             return;
         }
-
-        String response = dubey.getResponse(input);
-        assert response != null : "Chatbot response should never be null";
-        assert !response.trim().isEmpty() : "Chatbot response should not be empty";
+        userInput.clear();
 
         if (input.equalsIgnoreCase("bye")) {
-            handleByeInput(input);
+            addMessages(new Message(input, true));
+            // Queued behind any pending commands so that their replies are shown first
+            commandRunner.runAfterQueued(() -> Platform.runLater(this::handleByeInput));
             return;
         }
 
-        handleResponse(input, response);
+        Message pendingReply = Message.pending();
+        addMessages(new Message(input, true), pendingReply);
+        commandRunner.submit(input, response -> {
+            assert response != null : "Chatbot response should never be null";
+            assert !response.trim().isEmpty() : "Chatbot response should not be empty";
+            Platform.runLater(() -> handleResponse(pendingReply, response));
+        });
     }
 
-    private void handleByeInput(String input) {
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getDukeDialog(ui.showGoodbyeMessage(), dukeImage)
-        );
+    private void handleByeInput() {
+        addMessages(new Message(ui.showGoodbyeMessage(), false));
 
         // Delay before closing
         PauseTransition delay = new PauseTransition(Duration.seconds(2));
@@ -92,16 +108,28 @@ public class MainWindow extends AnchorPane {
         delay.play();
     }
 
-    private void handleResponse(String input, String response) {
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getDukeDialog(response, dukeImage)
-        );
-        userInput.clear();
+    private void handleResponse(Message pendingReply, String response) {
+        history.replace(pendingReply, new Message(response, false));
+        dialogList.scrollTo(history.size() - 1);
+    }
+
+    /**
+     * Waits for queued commands to finish so that nothing is lost when the application closes.
+     */
+    public void shutdown() {
+        commandRunner.shutdown(SHUTDOWN_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Appends messages to the chat, drops the oldest ones beyond the history limit and scrolls to the newest.
+     */
+    private void addMessages(Message... newMessages) {
+        history.add(newMessages);
+        dialogList.scrollTo(history.size() - 1);
     }
 
     private void closeApplication() {
-        Stage stage = (Stage) dialogContainer.getScene().getWindow();
+        Stage stage = (Stage) dialogList.getScene().getWindow();
         stage.close();
     }
 }
@@ -0,0 +1,49 @@
+package dubey;
+
+/**
+ * Represents one message shown in the chat: either the user's input or Dubey's reply.
+ */
+final class Message {
+    private static final String PENDING_TEXT = "...";
+
+    private final String text;
+    private final boolean isFromUser;
+    private final boolean isPending;
+
+    /**
+     * Constructor for Message Class.
+     *
+     * @param text       Text of the message.
+     * @param isFromUser True if the user sent the message, false if Dubey did.
+     */
+    public Message(String text, boolean isFromUser) {
+        this(text, isFromUser, false);
+    }
+
+    private Message(String text, boolean isFromUser, boolean isPending) {
+        this.text = text;
+        this.isFromUser = isFromUser;
+        this.isPending = isPending;
+    }
+
+    /**
+     * Creates a placeholder for a reply from Dubey that is still being worked on.
+     *
+     * @return The placeholder message.
+     */
+    public static Message pending() {
+        return new Message(PENDING_TEXT, false, true);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isFromUser() {
+        return isFromUser;
+    }
+
+    public boolean isPending() {
+        return isPending;
+    }
+}
@@ -0,0 +1,214 @@
+package dubey;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects counters and latency histograms while Dubey runs.
+ * Every command type has a run count, a failure count and a histogram per processing phase. Other operations, such
+ * as storage writes, are timed under a name of their own. All recording methods are thread-safe.
+ */
+class Metrics {
+    /**
+     * Phases a command goes through in {@link Dubey#getResponse(String)}.
+     */
+    enum Phase {
+        PARSE, EXECUTE, RENDER, SAVE
+    }
+
+    private final AtomicReferenceArray<CommandStats> commandStats =
+            new AtomicReferenceArray<>(Command.Type.values().length);
+    private final LongAdder invalidCount = new LongAdder();
+    private final LongAdder skippedSaveCount = new LongAdder();
+    private final Map<String, LatencyHistogram> timers = new ConcurrentSkipListMap<>();
+    private ScheduledExecutorService dumpScheduler;
+    private Path dumpPath;
+
+    /**
+     * Counters and phase histograms of one command type.
+     */
+    private static class CommandStats {
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+
+        CommandStats() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    /**
+     * Records how long a command spent in one phase.
+     *
+     * @param type  Type of the command.
+     * @param phase The phase.
+     * @param nanos Duration in nanoseconds.
+     */
+    public void recordPhase(Command.Type type, Phase phase, long nanos) {
+        statsOf(type).phases[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records that a command has been run.
+     *
+     * @param type         Type of the command.
+     * @param isSuccessful False if the command failed with an error.
+     */
+    public void recordRun(Command.Type type, boolean isSuccessful) {
+        CommandStats stats = statsOf(type);
+        stats.runs.increment();
+        if (!isSuccessful) {
+            stats.failures.increment();
+        }
+    }
+
+    /**
+     * Records that a line of input could not be parsed into a command.
+     */
+    public void recordInvalidCommand() {
+        invalidCount.increment();
+    }
+
+    /**
+     * Records that a command left the tasks unchanged, so nothing was saved after it.
+     */
+    public void recordSkippedSave() {
+        skippedSaveCount.increment();
+    }
+
+    public long getSkippedSaveCount() {
+        return skippedSaveCount.sum();
+    }
+
+    /**
+     * Records the duration of an operation that is not a command phase.
+     *
+     * @param name  Name of the operation.
+     * @param nanos Duration in nanoseconds.
+     */
+    public void recordTimer(String name, long nanos) {
+        timers.computeIfAbsent(name, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    private CommandStats statsOf(Command.Type type) {
+        CommandStats stats = commandStats.get(type.ordinal());
+        if (stats == null) {
+            commandStats.compareAndSet(type.ordinal(), null, new CommandStats());
+            stats = commandStats.get(type.ordinal());
+        }
+        return stats;
+    }
+
+    /**
+     * Formats everything recorded so far.
+     *
+     * @return One block per command type that has run, followed by the timed operations.
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Command.Type type : Command.Type.values()) {
+            CommandStats stats = commandStats.get(type.ordinal());
+            if (stats == null || stats.runs.sum() == 0) {
+                continue;
+            }
+            sb.append(type.name().toLowerCase()).append(": ").append(stats.runs.sum()).append(" runs, ")
+                    .append(stats.failures.sum()).append(" failed\n");
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = stats.phases[phase.ordinal()];
+                if (histogram.getCount() > 0) {
+                    sb.append("  ").append(phase.name().toLowerCase()).append(' ');
+                    appendPercentiles(histogram, sb);
+                }
+            }
+        }
+        for (Map.Entry<String, LatencyHistogram> timer : timers.entrySet()) {
+            sb.append(timer.getKey()).append(": ").append(timer.getValue().getCount()).append(" runs\n  ");
+            appendPercentiles(timer.getValue(), sb);
+        }
+        if (skippedSaveCount.sum() > 0) {
+            sb.append("skipped saves: ").append(skippedSaveCount.sum()).append('\n');
+        }
+        if (invalidCount.sum() > 0) {
+            sb.append("invalid commands: ").append(invalidCount.sum()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void appendPercentiles(LatencyHistogram histogram, StringBuilder sb) {
+        sb.append("p50 ").append(formatNanos(histogram.getValueAtPercentile(50)))
+                .append(", p99 ").append(formatNanos(histogram.getValueAtPercentile(99)))
+                .append(", max ").append(formatNanos(histogram.getMax())).append('\n');
+    }
+
+    /**
+     * Formats a duration with a unit that keeps it short, e.g. {@code 850 ns}, {@code 12.3 us} or {@code 4.1 ms}.
+     *
+     * @param nanos Duration in nanoseconds.
+     * @return The formatted duration.
+     */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + " ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1f ms", nanos / 1e6);
+        }
+        return String.format("%.2f s", nanos / 1e9);
+    }
+
+    /**
+     * Starts writing the report to a file at a fixed interval, replacing the previous report each time.
+     *
+     * @param path         File to write to.
+     * @param periodMillis Time between two reports.
+     */
+    public synchronized void startPeriodicDump(Path path, long periodMillis) {
+        assert dumpScheduler == null : "Periodic dump should only be started once";
+        dumpPath = path;
+        dumpScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dubey-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpScheduler.scheduleAtFixedRate(() -> dump(path), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic dump, if one was started, after writing one last report.
+     */
+    public synchronized void stopPeriodicDump() {
+        if (dumpScheduler == null) {
+            return;
+        }
+        dumpScheduler.shutdownNow();
+        dumpScheduler = null;
+        dump(dumpPath);
+    }
+
+    /**
+     * Writes the report to a file.
+     *
+     * @param path File to write to.
+     */
+    public void dump(Path path) {
+        try {
+            Files.writeString(path, "Dubey metrics at " + LocalDateTime.now() + "\n" + report(),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("An error occurred while writing metrics: " + e.getMessage());
+        }
+    }
+}
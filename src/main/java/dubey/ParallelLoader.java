@@ -0,0 +1,228 @@
+package dubey;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads large task files by splitting them at newline boundaries and decoding the chunks in parallel on the common
+ * fork-join pool. Each chunk is read with a positional read rather than through a memory mapping, since a mapping
+ * stays in place until it is garbage collected and on Windows that blocks replacing the file on the next save.
+ * Chunk results are concatenated in file order, and as in a sequential read the last snapshot header wins, so the
+ * loaded list and generation are identical to the ones a sequential read would produce.
+ */
+final class ParallelLoader {
+    private static final int CHUNK_SIZE = 4 << 20;
+    private static final int PROBE_SIZE = 4096;
+
+    private ParallelLoader() {
+    }
+
+    /**
+     * Result of loading a task file.
+     */
+    static final class Result {
+        private final List<Task> tasks;
+        private final long generation;
+        private final int lineCount;
+
+        private Result(List<Task> tasks, long generation, int lineCount) {
+            this.tasks = tasks;
+            this.generation = generation;
+            this.lineCount = lineCount;
+        }
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Gets the generation from the last snapshot header.
+         *
+         * @return The generation, or -1 if the file has no header.
+         */
+        public long getGeneration() {
+            return generation;
+        }
+
+        public int getLineCount() {
+            return lineCount;
+        }
+    }
+
+    /**
+     * Checks whether a file can be split with int offsets.
+     *
+     * @param size Size of the file in bytes.
+     * @return True if the file is small enough to be loaded by this class.
+     */
+    public static boolean canLoad(long size) {
+        return size <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Loads all tasks from the given file.
+     *
+     * @param path Path to the task file.
+     * @return The decoded tasks in file order along with the snapshot generation.
+     * @throws IOException if the file cannot be read.
+     */
+    public static Result load(Path path) throws IOException {
+        return load(path, CHUNK_SIZE);
+    }
+
+    /**
+     * Loads all tasks from the given file, split into chunks of about the given size.
+     *
+     * @param path      Path to the task file.
+     * @param chunkSize Minimum number of bytes decoded by each fork-join task.
+     * @return The decoded tasks in file order along with the snapshot generation.
+     * @throws IOException if the file cannot be read.
+     */
+    public static Result load(Path path, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            assert canLoad(size) : "File is too large to split with int offsets";
+            int[] bounds = splitAtNewlines(channel, (int) size, chunkSize);
+            try {
+                return ForkJoinPool.commonPool().invoke(new LoadTask(channel, bounds, 0, bounds.length - 1));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static int[] splitAtNewlines(FileChannel channel, int size, int chunkSize) throws IOException {
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        int position = 0;
+        while (position < size) {
+            int next = (int) Math.min((long) position + chunkSize, size);
+            if (next < size) {
+                next = lineStartAtOrAfter(channel, next, size, probe);
+            }
+            bounds.add(next);
+            position = next;
+        }
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Finds the first line start at or after the given position.
+     */
+    private static int lineStartAtOrAfter(FileChannel channel, int position, int size, ByteBuffer probe)
+            throws IOException {
+        int offset = position - 1;
+        while (offset < size) {
+            probe.clear();
+            int count = read(channel, probe, offset);
+            if (count == 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                if (probe.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += count;
+        }
+        return size;
+    }
+
+    /**
+     * Fills the buffer from the given file position, stopping early only at the end of the file.
+     *
+     * @return The number of bytes read.
+     */
+    private static int read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position + total);
+            if (count < 0) {
+                break;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Decodes the chunks {@code [from, to)} of the file, halving the range until a single chunk is left.
+     */
+    @SuppressWarnings("serial") // Fork/join tasks are never serialized
+    private static class LoadTask extends RecursiveTask<Result> {
+        private final FileChannel channel;
+        private final int[] bounds;
+        private final int from;
+        private final int to;
+
+        LoadTask(FileChannel channel, int[] bounds, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= 1) {
+                return from == to ? new Result(new ArrayList<>(), -1, 0) : decodeChunk(bounds[from], bounds[to]);
+            }
+            int middle = (from + to) >>> 1;
+            LoadTask left = new LoadTask(channel, bounds, from, middle);
+            left.fork();
+            Result right = new LoadTask(channel, bounds, middle, to).compute();
+            Result leftResult = left.join();
+
+            List<Task> tasks = new ArrayList<>(leftResult.tasks.size() + right.tasks.size());
+            tasks.addAll(leftResult.tasks);
+            tasks.addAll(right.tasks);
+            long generation = right.generation >= 0 ? right.generation : leftResult.generation;
+            return new Result(tasks, generation, leftResult.lineCount + right.lineCount);
+        }
+
+        private Result decodeChunk(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            try {
+                read(channel, ByteBuffer.wrap(bytes), start);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            List<Task> tasks = new ArrayList<>();
+            long generation = -1;
+            int lineCount = 0;
+            int lineStart = 0;
+            while (lineStart < bytes.length) {
+                int lineEnd = lineStart;
+                while (lineEnd < bytes.length && bytes[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+                String line = new String(bytes, lineStart, contentEnd - lineStart, StandardCharsets.UTF_8);
+                lineCount++;
+
+                Task task = TaskCodec.decode(line);
+                if (task != null) {
+                    tasks.add(task);
+                } else {
+                    long headerGeneration = TaskCodec.decodeGeneration(line);
+                    if (headerGeneration >= 0) {
+                        generation = headerGeneration;
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            return new Result(tasks, generation, lineCount);
+        }
+    }
+}
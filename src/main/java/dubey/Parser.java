@@ -1,157 +1,283 @@
 package dubey;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
 /**
  * Parses user input into commands and arguments.
+ * The input is scanned once: the command word selects how the rest of the line is split, and every argument is
+ * converted to its type up front, so malformed input is reported before the command is run.
  */
-public class Parser {
+public final class Parser {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern LIST_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final String BY = " /by ";
+    private static final String FROM = " /from ";
+    private static final String TO = " /to ";
+    private static final String PARTIAL = "--partial ";
+    private static final String PAGE_SIZE = "--page-size";
+    private static final char FIELD_SEPARATOR = '|';
 
-    private final String[] commandSplit;
-    private final String[] loadLineSplit;
+    private Parser() {
+    }
 
     /**
-     * Constructs a Parser object by splitting user input into command and arguments.
+     * Parses a line of user input.
      *
      * @param input The raw user input string.
+     * @return The parsed command.
+     * @throws IllegalArgumentException if the command is unknown or its arguments are missing or malformed.
      */
-    public Parser(String input) {
-        this.commandSplit = input.split(" ", 2);
-        this.loadLineSplit = null; // Not used in this case
+    public static Command parse(String input) {
+        int space = input.indexOf(' ');
+        String word = space < 0 ? input : input.substring(0, space);
+        String arguments = space < 0 ? "" : input.substring(space + 1);
+        switch (word) {
+        case "list":
+            return parseList(arguments);
+        case "todo":
+            return Command.ofText(Command.Type.TODO, requireStorable(require(arguments, "todo <description>")));
+        case "deadline":
+            return parseDeadline(arguments);
+        case "event":
+            return parseEvent(arguments);
+        case "delete":
+            return parseSelection(Command.Type.DELETE, arguments, "delete <task numbers>");
+        case "mark":
+            return parseSelection(Command.Type.MARK, arguments, "mark <task numbers>");
+        case "unmark":
+            return parseSelection(Command.Type.UNMARK, arguments, "unmark <task numbers>");
+        case "find":
+            return parseFind(arguments);
+        case "due":
+            return Command.ofDate(Command.Type.DUE, parseDate(require(arguments, "due <yyyy-MM-dd>")));
+        case "before":
+            return Command.ofDate(Command.Type.BEFORE, parseDate(require(arguments, "before <yyyy-MM-dd>")));
+        case "overdue":
+            return Command.of(Command.Type.OVERDUE);
+        case "on":
+            return Command.ofDate(Command.Type.ON, parseDate(require(arguments, "on <yyyy-MM-dd>")));
+        case "between":
+            return parseBetween(arguments);
+        case "batch":
+            return parseBatch(arguments);
+        case "stats":
+            return Command.of(Command.Type.STATS);
+        case "use":
+            return parseUse(arguments);
+        case "memory":
+            return Command.of(Command.Type.MEMORY);
+        default:
+            throw new IllegalArgumentException("Unknown command: " + word);
+        }
     }
 
-    /**
-     * Constructs a Parser object for parsing saved tasks (from file).
-     *
-     * @param parts The array of task components (e.g., ["T", "1", "description", "date"]).
-     */
-    public Parser(String[] parts) {
-        this.loadLineSplit = parts;
-        this.commandSplit = null; // Not used in this case
+    private static String require(String arguments, String usage) {
+        if (arguments.isBlank()) {
+            throw new IllegalArgumentException("Missing arguments. Usage: " + usage);
+        }
+        return arguments;
     }
 
     /**
-     * Retrieves the command from the user input.
-     *
-     * @return The command as a string (e.g., "todo", "deadline", "event").
+     * Checks that a description or time can be stored: the task file separates fields with {@code |}, so a field
+     * containing one would be read back split in two.
      */
-    public String getCommand() {
-        return commandSplit[0];
+    private static String requireStorable(String text) {
+        if (text.indexOf(FIELD_SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Descriptions and times cannot contain '" + FIELD_SEPARATOR + "'");
+        }
+        return text;
     }
 
     /**
-     * Retrieves the description or arguments associated with the command.
-     *
-     * @return The command description or arguments as a string.
+     * Parses the arguments of a list command: an optional page number and an optional {@code --page-size <n>}, in
+     * either order.
      */
-    public String getDescription() {
-        return commandSplit[1];
+    private static Command parseList(String arguments) {
+        int page = 1;
+        boolean hasPage = false;
+        int pageSize = -1;
+        String[] tokens = WHITESPACE.split(arguments.trim());
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].isEmpty()) {
+                continue;
+            }
+            if (tokens[i].equals(PAGE_SIZE)) {
+                if (i + 1 == tokens.length) {
+                    throw new IllegalArgumentException("Missing page size. Usage: list [page] [--page-size <n>]");
+                }
+                pageSize = parseNumber(tokens[++i], 0, tokens[i].length(), "page size");
+                if (pageSize < 1) {
+                    throw new IllegalArgumentException("Invalid page size: " + pageSize);
+                }
+            } else if (hasPage) {
+                throw new IllegalArgumentException("Expected one page number. Usage: list [page] [--page-size <n>]");
+            } else {
+                page = parseNumber(tokens[i], 0, tokens[i].length(), "page number");
+                hasPage = true;
+            }
+        }
+        if (page < 1) {
+            throw new IllegalArgumentException("Invalid page number: " + page);
+        }
+        return Command.ofPage(page, pageSize);
     }
 
-    /**
-     * Extracts the task description from a deadline command.
-     *
-     * @return The description of the deadline task.
-     */
-    public String getDeadlineDescription() {
-        return commandSplit[1].split(" /by ")[0];
+    private static Command parseDeadline(String arguments) {
+        int by = arguments.indexOf(BY);
+        if (by <= 0) {
+            throw new IllegalArgumentException("Missing /by date. Usage: deadline <description> /by <yyyy-MM-dd>");
+        }
+        return Command.ofDeadline(requireStorable(arguments.substring(0, by)),
+                parseDate(arguments.substring(by + BY.length())));
     }
 
-    /**
-     * Extracts the deadline date from a deadline command.
-     *
-     * @return The deadline date as a string.
-     */
-    public String getDeadlineDate() {
-        return commandSplit[1].split(" /by ")[1];
+    private static Command parseEvent(String arguments) {
+        int from = arguments.indexOf(FROM);
+        int to = from < 0 ? -1 : arguments.indexOf(TO, from + FROM.length());
+        if (from <= 0 || to < 0) {
+            throw new IllegalArgumentException(
+                    "Missing /from or /to time. Usage: event <description> /from <start> /to <end>");
+        }
+        return Command.ofEvent(requireStorable(arguments.substring(0, from)),
+                requireStorable(arguments.substring(from + FROM.length(), to)),
+                requireStorable(arguments.substring(to + TO.length())));
     }
 
-    /**
-     * Extracts the task description from an event command.
-     *
-     * @return The description of the event task.
-     */
-    public String getEventDescription() {
-        return commandSplit[1].split(" /from | /to ")[0];
+    private static Command parseFind(String arguments) {
+        require(arguments, "find <keyword> or find ~[distance] <word>");
+        if (arguments.charAt(0) != '~') {
+            return Command.ofText(Command.Type.FIND, arguments);
+        }
+        int space = arguments.indexOf(' ');
+        if (space > 1 && isDigits(arguments, 1, space)) {
+            return Command.ofFuzzyFind(arguments.substring(space + 1),
+                    parseNumber(arguments, 1, space, "edit distance"));
+        }
+        return Command.ofFuzzyFind(arguments.substring(1), 1);
     }
 
-    /**
-     * Extracts the start date of an event from the input.
-     *
-     * @return The event's start date as a string.
-     */
-    public String getEventFromDate() {
-        return commandSplit[1].split(" /from | /to ")[1];
+    private static Command parseBetween(String arguments) {
+        String[] dates = WHITESPACE.split(require(arguments, "between <yyyy-MM-dd> <yyyy-MM-dd>").trim());
+        if (dates.length != 2) {
+            throw new IllegalArgumentException("Expected two dates. Usage: between <yyyy-MM-dd> <yyyy-MM-dd>");
+        }
+        return Command.ofDateRange(parseDate(dates[0]), parseDate(dates[1]));
     }
 
-    /**
-     * Extracts the end date of an event from the input.
-     *
-     * @return The event's end date as a string.
-     */
-    public String getEventToDate() {
-        return commandSplit[1].split(" /from | /to ")[2];
+    private static Command parseBatch(String arguments) {
+        boolean isPartial = arguments.startsWith(PARTIAL);
+        String filePath = isPartial ? arguments.substring(PARTIAL.length()) : arguments;
+        return Command.ofBatch(require(filePath, "batch [--partial] <file>").trim(), isPartial);
     }
 
-    /**
-     * Retrieves the index number from a command (e.g., for delete, mark, unmark).
-     *
-     * @return The index number as an Integer.
-     * @throws NumberFormatException if the extracted index is not a valid number.
-     */
-    public Integer getIndexNumber() {
-        return Integer.parseInt(commandSplit[1]);
+    private static Command parseUse(String arguments) {
+        String name = require(arguments, "use <list name>").trim();
+        if (!LIST_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException(
+                    "Invalid list name: " + name + ". List names may only contain letters, digits, '-' and '_'");
+        }
+        return Command.ofText(Command.Type.USE, name);
     }
 
     /**
-     * Retrieves the type of task (T = Todo, D = Deadline, E = Event).
-     *
-     * @return The task type.
+     * Parses the selection of a delete, mark or unmark command: a single task number, a comma-separated list of
+     * task numbers and ranges such as {@code 1,4,9} or {@code 10-500}, or {@code done}.
      */
-    public String getTaskType() {
-        return loadLineSplit[0];
-    }
+    private static Command parseSelection(Command.Type type, String arguments, String usage) {
+        String selection = require(arguments, usage).trim();
+        if (selection.equals("done")) {
+            return Command.ofDoneSelection(type);
+        }
+        if (isDigits(selection, 0, selection.length())) {
+            int number = parseNumber(selection, 0, selection.length(), "task number");
+            if (number < 1) {
+                throw new IllegalArgumentException("Invalid task number: " + selection);
+            }
+            return Command.ofSelection(type, new int[] {number, number}, false);
+        }
 
-    /**
-     * Checks if the task is marked as done.
-     *
-     * @return true if the task is done, false otherwise.
-     */
-    public boolean isTaskDone() {
-        return loadLineSplit[1].equals("1");
+        // Ranges are kept as pairs of bounds; they are only expanded once checked against the size of the list
+        int[] bounds = new int[8];
+        int rangeCount = 0;
+        int start = 0;
+        while (start <= selection.length()) {
+            int end = selection.indexOf(',', start);
+            end = end < 0 ? selection.length() : end;
+            String part = selection.substring(start, end).trim();
+            int dash = part.indexOf('-');
+            int first = parseNumber(part, 0, dash < 0 ? part.length() : dash, "task number");
+            int last = dash < 0 ? first : parseNumber(part, dash + 1, part.length(), "task number");
+            if (first < 1 || last < first) {
+                throw new IllegalArgumentException("Invalid task range: " + part);
+            }
+            if (rangeCount * 2 == bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[rangeCount * 2] = first;
+            bounds[rangeCount * 2 + 1] = last;
+            rangeCount++;
+            start = end + 1;
+        }
+        return Command.ofSelection(type, mergeRanges(bounds, rangeCount), true);
     }
 
     /**
-     * Retrieves the task description.
-     *
-     * @return The task description.
+     * Sorts ranges given as pairs of bounds and merges those that overlap or touch.
      */
-    public String loadDescription() {
-        return loadLineSplit[2];
+    private static int[] mergeRanges(int[] bounds, int rangeCount) {
+        Integer[] order = new Integer[rangeCount];
+        for (int i = 0; i < rangeCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(bounds[a * 2], bounds[b * 2]));
+        int[] merged = new int[rangeCount * 2];
+        int mergedCount = 0;
+        for (int i : order) {
+            int first = bounds[i * 2];
+            int last = bounds[i * 2 + 1];
+            if (mergedCount > 0 && first - 1 <= merged[mergedCount * 2 - 1]) {
+                merged[mergedCount * 2 - 1] = Math.max(merged[mergedCount * 2 - 1], last);
+            } else {
+                merged[mergedCount * 2] = first;
+                merged[mergedCount * 2 + 1] = last;
+                mergedCount++;
+            }
+        }
+        return Arrays.copyOf(merged, mergedCount * 2);
     }
 
-    /**
-     * Extracts the deadline date from saved task data.
-     *
-     * @return The deadline date.
-     */
-    public String loadDeadlineDate() {
-        return loadLineSplit[3];
+    private static boolean isDigits(String text, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 
-    /**
-     * Extracts the event start date from saved task data.
-     *
-     * @return The event start date.
-     */
-    public String loadEventFromDate() {
-        return loadLineSplit[3];
+    private static int parseNumber(String text, int start, int end, String name) {
+        String number = text.substring(start, end).trim();
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + number);
+        }
     }
 
-    /**
-     * Extracts the event end date from saved task data.
-     *
-     * @return The event end date.
-     */
-    public String loadEventToDate() {
-        return loadLineSplit[4];
+    private static LocalDate parseDate(String text) {
+        try {
+            return LocalDate.parse(text.trim(), DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + text.trim() + ". Dates are written as yyyy-MM-dd");
+        }
     }
 }
@@ -0,0 +1,63 @@
+package dubey;
+
+/**
+ * State kept for each user of a {@link Dubey} instance: the list in use, the page size of the list command, whether
+ * a batch is running and whether the user may run batch files. The GUI uses a single session, while the server
+ * opens one per connection, so that a client switching lists or page sizes does not change them for the other
+ * clients.
+ */
+final class Session {
+    private final boolean canReadFiles;
+    private volatile TaskStore store;
+    private volatile int pageSize;
+    private boolean isInBatch;
+
+    /**
+     * Constructor for Session Class.
+     *
+     * @param store        The list to start with.
+     * @param pageSize     Number of tasks per page of the list command.
+     * @param canReadFiles True if the user may run batch files, which are read from the machine Dubey runs on.
+     */
+    Session(TaskStore store, int pageSize, boolean canReadFiles) {
+        this.store = store;
+        this.pageSize = pageSize;
+        this.canReadFiles = canReadFiles;
+    }
+
+    public TaskStore getStore() {
+        return store;
+    }
+
+    public void setStore(TaskStore store) {
+        this.store = store;
+    }
+
+    public TaskList getTaskList() {
+        return store.getTaskList();
+    }
+
+    public Storage getStorage() {
+        return store.getStorage();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public boolean canReadFiles() {
+        return canReadFiles;
+    }
+
+    public boolean isInBatch() {
+        return isInBatch;
+    }
+
+    public void setInBatch(boolean isInBatch) {
+        this.isInBatch = isInBatch;
+    }
+}
@@ -1,17 +1,73 @@
 package dubey;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.time.LocalDate;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Manages file storage for tasks.
+ * In journaled mode, mutations are appended to a journal next to the task file and only folded into a full
+ * snapshot once the journal grows past the compaction threshold. Journal records are keyed by task ID: an upsert
+ * holding the whole task for an added or changed task, and a tombstone for a deleted one, so a commit writes only
+ * the tasks that changed however the positions of the others shift. Snapshots are written to a temporary file and
+ * atomically renamed over the task file, so a crash never leaves a half-written list behind.
+ * With group commit enabled, commits are coalesced and flushed on a background thread.
+ * Snapshots are written as pipe-delimited text or in {@link BinaryTaskFormat}; the format is detected on load.
  */
 public class Storage {
+    /**
+     * On-disk format of task snapshots.
+     */
+    public enum Format {
+        TEXT,
+        BINARY
+    }
+
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final long DEFAULT_PARALLEL_LOAD_THRESHOLD = 16L << 20;
+
     private final String filePath;
+    private final Journal journal;
+    private boolean isJournaled;
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private long parallelLoadThreshold = DEFAULT_PARALLEL_LOAD_THRESHOLD;
+    private Format format = Format.TEXT;
+    private long generation;
+    private GroupCommitter groupCommitter;
+    private long groupCommitLatencyMillis;
+    private List<Task> pendingSnapshot;
+    private boolean hasPendingCommit;
+    private List<String> batchRecords;
+    private long lastLoadNanos;
+    private Metrics metrics;
+    private int lastLoadLineCount;
 
     /**
      * Constructor for Storage Class.
@@ -20,14 +76,109 @@ public class Storage {
      */
     public Storage(String filePath) {
         this.filePath = filePath;
+        this.journal = new Journal(filePath + ".journal");
+    }
+
+    /**
+     * Enables or disables journaled mode. Must be called before {@link #load()}.
+     *
+     * @param isJournaled True to append mutations to a journal instead of rewriting the file on every commit.
+     */
+    public void setJournaled(boolean isJournaled) {
+        this.isJournaled = isJournaled;
+    }
+
+    /**
+     * Sets the number of journal records after which the journal is compacted into a new snapshot.
+     *
+     * @param compactionThreshold Number of records, must be positive.
+     */
+    public void setCompactionThreshold(int compactionThreshold) {
+        assert compactionThreshold > 0 : "Compaction threshold should be positive";
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Sets the format new snapshots are written in. Existing files are read in whichever format they have.
+     *
+     * @param format The snapshot format.
+     */
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Sets the file size from which {@link #load()} memory-maps the file and decodes it in parallel.
+     *
+     * @param parallelLoadThreshold Size in bytes, or {@code Long.MAX_VALUE} to always load sequentially.
+     */
+    public void setParallelLoadThreshold(long parallelLoadThreshold) {
+        this.parallelLoadThreshold = parallelLoadThreshold;
+    }
+
+    /**
+     * Enables group commit. Commits are then acknowledged immediately and flushed together on a background
+     * thread no later than the given latency bound. Must be called before any commit.
+     *
+     * @param maxLatencyMillis Maximum time a commit may wait before it is written out.
+     */
+    public void setGroupCommitLatency(long maxLatencyMillis) {
+        assert groupCommitter == null : "Group commit should only be configured once";
+        this.groupCommitter = new GroupCommitter(this::flush, maxLatencyMillis);
+        this.groupCommitLatencyMillis = maxLatencyMillis;
+    }
+
+    /**
+     * Creates a storage for another file in the same directory, configured like this one.
+     *
+     * @param name Name of the other file, without directory or extension.
+     * @return The new storage, not yet loaded.
+     */
+    public Storage createSibling(String name) {
+        Path path = Paths.get(filePath);
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String siblingName = name + (dot < 0 ? "" : fileName.substring(dot));
+        Path parent = path.getParent();
+        Storage sibling = new Storage(parent == null ? siblingName : parent.resolve(siblingName).toString());
+        sibling.isJournaled = isJournaled;
+        sibling.compactionThreshold = compactionThreshold;
+        sibling.parallelLoadThreshold = parallelLoadThreshold;
+        sibling.format = format;
+        sibling.metrics = metrics;
+        if (groupCommitter != null) {
+            sibling.setGroupCommitLatency(groupCommitLatencyMillis);
+        }
+        return sibling;
+    }
+
+    /**
+     * Gets the name of the task file without directory or extension, e.g. {@code tasks} for
+     * {@code data/tasks.txt}.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        String fileName = Paths.get(filePath).getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return dot <= 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    /**
+     * Sets where the durations of loads, journal syncs and snapshot writes are recorded.
+     *
+     * @param metrics Metrics to record into.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
     }
 
     /**
-     * Loads tasks from the file.
+     * Loads tasks from the file, replaying any journal written since the last snapshot.
      *
      * @return A list of tasks loaded from the file.
      */
-    public ArrayList<Task> load() {
+    public synchronized ArrayList<Task> load() {
         ArrayList<Task> taskList = new ArrayList<>();
         File file = new File(filePath);
 
@@ -42,28 +193,23 @@ public class Storage {
             assert file.canRead() : "File should be readable";
 
             // Read existing tasks from the file
-            try (Scanner scanner = new Scanner(file)) {
-                while (scanner.hasNextLine()) {
-                    String line = scanner.nextLine();
-                    String[] parts = line.split("\\|", -1);
-                    Parser taskRead = new Parser(parts);
-                    String type = taskRead.getTaskType();
-
-                    switch (type) {
-                    case "T":
-                        handleLoadTodo(taskRead, taskList);
-                        break;
-                    case "D":
-                        handleLoadDeadline(taskRead, taskList);
-                        break;
-                    case "E":
-                        handleLoadEvent(taskRead, taskList);
-                        break;
-                    default:
-                        break;
-                    }
-                }
+            long start = System.nanoTime();
+            generation = 0;
+            lastLoadLineCount = 0;
+            long size = file.length();
+            if (size > 0 && BinaryTaskFormat.isBinary(file.toPath())) {
+                loadBinary(file, taskList);
+            } else if (size >= parallelLoadThreshold && ParallelLoader.canLoad(size)) {
+                ParallelLoader.Result result = ParallelLoader.load(file.toPath());
+                taskList.addAll(result.getTasks());
+                generation = Math.max(result.getGeneration(), 0);
+                lastLoadLineCount = result.getLineCount();
+            } else {
+                loadSequentially(file, taskList);
             }
+            replayJournal(taskList, assignIds(taskList));
+            lastLoadNanos = System.nanoTime() - start;
+            recordTimer("storage load", lastLoadNanos);
         } catch (IOException e) {
             System.out.println("An error occurred while handling the file: " + e.getMessage());
         }
@@ -82,48 +228,406 @@ public class Storage {
         }
     }
 
-    private void handleLoadTodo(Parser taskRead, ArrayList<Task> taskList) {
-        Task todo = new Todo(taskRead.loadDescription());
-        todo.setStatus(taskRead.isTaskDone());
-        taskList.add(todo);
+    private void loadSequentially(File file, List<Task> taskList) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lastLoadLineCount++;
+                loadLine(line, taskList);
+            }
+        }
     }
 
-    private void handleLoadDeadline(Parser taskRead, ArrayList<Task> taskList) {
-        LocalDate by = LocalDate.parse(taskRead.loadDeadlineDate());
-        Task deadline = new Deadline(taskRead.loadDescription(), by.toString());
-        deadline.setStatus(taskRead.isTaskDone());
-        taskList.add(deadline);
+    private void loadBinary(File file, List<Task> taskList) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), READ_BUFFER_SIZE))) {
+            generation = BinaryTaskFormat.read(in, taskList);
+        }
     }
 
-    private void handleLoadEvent(Parser taskRead, ArrayList<Task> taskList) {
-        String from = taskRead.loadEventFromDate();
-        String to = taskRead.loadEventToDate();
-        Task event = new Event(taskRead.loadDescription(), from, to);
-        event.setStatus(taskRead.isTaskDone());
-        taskList.add(event);
+    private void loadLine(String line, List<Task> taskList) {
+        Task task = TaskCodec.decode(line);
+        if (task != null) {
+            taskList.add(task);
+            return;
+        }
+        long headerGeneration = TaskCodec.decodeGeneration(line);
+        if (headerGeneration >= 0) {
+            generation = headerGeneration;
+        }
     }
 
     /**
-     * Saves tasks to the file.
+     * Gives an ID to every task read from a file written before tasks had IDs. The IDs follow the largest one in
+     * use, in list order, so the same file always gives the same IDs and later journal records can refer to them.
      *
-     * @param taskList List of tasks to save.
+     * @return The next free ID.
      */
-    public void save(ArrayList<Task> taskList) {
-        try (FileWriter writer = new FileWriter(filePath)) {
+    private static long assignIds(List<Task> taskList) {
+        long nextId = 1;
+        for (Task task : taskList) {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        for (Task task : taskList) {
+            if (task.getId() == 0) {
+                task.setId(nextId++);
+            }
+        }
+        return nextId;
+    }
+
+    /**
+     * Applies the journal records to the loaded tasks. Upserts and tombstones are applied by ID; deleted tasks are
+     * removed in one pass, before any positional record from an older journal and at the end. A corrupt record ends
+     * the replay and is cut off the journal along with the records after it.
+     */
+    private void replayJournal(List<Task> taskList, long firstFreeId) throws IOException {
+        List<String> records = journal.readRecords(generation);
+        Map<Long, Task> tasksById = new HashMap<>();
+        if (!records.isEmpty()) {
             for (Task task : taskList) {
-                if (task instanceof Todo) {
-                    writer.write(String.format("T|%d|%s%n", task.isDone ? 1 : 0, task.description));
-                } else if (task instanceof Deadline deadline) {
-                    writer.write(String.format("D|%d|%s|%s%n", task.isDone ? 1 : 0, task.description, deadline.by));
-                } else if (task instanceof Event event) {
-                    writer.write(String.format("E|%d|%s|%s|%s%n", task.isDone ? 1 : 0, task.description, event.from,
-                            event.to));
-                } else {
-                    throw new RuntimeException("Unknown task type: " + task.getClass());
+                tasksById.put(task.getId(), task);
+            }
+        }
+        Set<Task> deleted = Collections.newSetFromMap(new IdentityHashMap<>());
+        long nextId = firstFreeId;
+        for (int i = 0; i < records.size(); i++) {
+            String record = records.get(i);
+            try {
+                String[] parts = record.split("\\|", -1);
+                switch (parts[0]) {
+                case "U":
+                    Task task = decodeRecord(record);
+                    if (task.getId() == 0) {
+                        // Upserts are matched by ID, so one without an ID would be added again on every replay
+                        throw new IOException("Journal record without a task ID: " + record);
+                    }
+                    Task existing = tasksById.get(task.getId());
+                    if (existing != null) {
+                        existing.setStatus(task.isDone);
+                    } else {
+                        taskList.add(task);
+                        tasksById.put(task.getId(), task);
+                        nextId = Math.max(nextId, task.getId() + 1);
+                    }
+                    break;
+                case "R":
+                    Task removed = tasksById.remove(Long.parseLong(parts[1]));
+                    if (removed != null) {
+                        deleted.add(removed);
+                    }
+                    break;
+                case "A":
+                    // Records written before tasks had IDs
+                    Task added = decodeRecord(record);
+                    added.setId(nextId++);
+                    taskList.add(added);
+                    tasksById.put(added.getId(), added);
+                    break;
+                case "X":
+                    removeDeleted(taskList, deleted);
+                    tasksById.remove(taskList.remove(Integer.parseInt(parts[1])).getId());
+                    break;
+                case "S":
+                    removeDeleted(taskList, deleted);
+                    taskList.get(Integer.parseInt(parts[1])).setStatus(parts[2].equals("1"));
+                    break;
+                default:
+                    throw new IOException("Corrupt journal record: " + record);
                 }
+            } catch (IOException | RuntimeException e) {
+                // Later records may depend on the corrupt one, so replay stops there and they are dropped
+                System.out.println("An error occurred while replaying the journal: " + e.getMessage());
+                journal.truncateRecords(i);
+                break;
+            }
+        }
+        removeDeleted(taskList, deleted);
+        if (isJournaled && records.isEmpty()) {
+            // Either there is no journal yet or it belongs to an older snapshot
+            journal.reset(generation);
+        }
+    }
+
+    private static Task decodeRecord(String record) throws IOException {
+        Task task;
+        try {
+            task = TaskCodec.decode(record.substring(2));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IOException("Corrupt journal record: " + record, e);
+        }
+        if (task == null) {
+            throw new IOException("Corrupt journal record: " + record);
+        }
+        return task;
+    }
+
+    private static void removeDeleted(List<Task> taskList, Set<Task> deleted) {
+        if (!deleted.isEmpty()) {
+            taskList.removeIf(deleted::contains);
+            deleted.clear();
+        }
+    }
+
+    /**
+     * Gets the time the last {@link #load()} took, including journal replay.
+     *
+     * @return Load time in nanoseconds.
+     */
+    public long getLastLoadNanos() {
+        return lastLoadNanos;
+    }
+
+    /**
+     * Gets the number of lines read from the task file by the last {@link #load()}.
+     *
+     * @return Line count.
+     */
+    public int getLastLoadLineCount() {
+        return lastLoadLineCount;
+    }
+
+    /**
+     * Records that a task was appended to the end of the list.
+     *
+     * @param task The task that was added, with its ID set.
+     */
+    public void recordAdd(Task task) {
+        recordUpdate(task);
+    }
+
+    /**
+     * Records the current state of a task, e.g. after its completion status changed. The record replaces any
+     * earlier state of the task with the same ID, or appends the task if there is none.
+     *
+     * @param task The task that was added or changed, with its ID set.
+     */
+    public synchronized void recordUpdate(Task task) {
+        assert task.getId() != 0 : "Journaled tasks should have an ID";
+        if (isJournaled) {
+            appendRecord("U|" + TaskCodec.encode(task));
+        }
+    }
+
+    /**
+     * Records that a task was deleted.
+     *
+     * @param task The deleted task.
+     */
+    public synchronized void recordDelete(Task task) {
+        if (isJournaled) {
+            appendRecord("R|" + task.getId());
+        }
+    }
+
+    private void appendRecord(String record) {
+        if (batchRecords != null) {
+            batchRecords.add(record);
+        } else {
+            journal.append(record);
+        }
+    }
+
+    /**
+     * Starts holding back journal records and background flushes until {@link #endBatch(boolean)}, so that not
+     * even a group commit can write part of a batch.
+     */
+    public synchronized void beginBatch() {
+        assert batchRecords == null : "Batches cannot be nested";
+        batchRecords = new ArrayList<>();
+    }
+
+    /**
+     * Releases or discards the journal records held back since {@link #beginBatch()}. A rolled back batch must
+     * be followed by a commit of the restored list, since a deferred save may still refer to the list it replaced.
+     *
+     * @param isApplied True if the batch took effect, false if it was rolled back.
+     */
+    public synchronized void endBatch(boolean isApplied) {
+        List<String> records = batchRecords;
+        batchRecords = null;
+        if (isApplied) {
+            for (String record : records) {
+                journal.append(record);
+            }
+        }
+        if (hasPendingCommit && groupCommitter != null) {
+            groupCommitter.requestFlush();
+        }
+    }
+
+    /**
+     * Persists the changes made since the last commit. In journaled mode only the recorded mutations are
+     * appended, otherwise the whole list is saved. With group commit enabled the write is deferred to the
+     * background thread, except for journal compactions which run immediately. A deferred save copies the list
+     * only when it is flushed, so however many commits are coalesced the list is copied once.
+     *
+     * @param taskList The current list of tasks. With group commit enabled it is copied later on the background
+     *                 thread, so it must be safe to copy while it changes, as {@link TaskList#getTasks()} is.
+     */
+    public void commit(List<Task> taskList) {
+        if (groupCommitter == null) {
+            commitNow(taskList);
+            return;
+        }
+        synchronized (this) {
+            if (isJournaled && journal.getRecordCount() >= compactionThreshold) {
+                // Compaction must see exactly the records journaled so far, so it cannot be deferred
+                pendingSnapshot = null;
+                hasPendingCommit = false;
+                commitNow(taskList);
+                return;
             }
+            if (!isJournaled) {
+                // Only the reference is kept; the flush copies whatever the list holds by then
+                pendingSnapshot = taskList;
+            }
+            hasPendingCommit = true;
+        }
+        groupCommitter.requestFlush();
+    }
+
+    /**
+     * Writes out any commit still waiting for the group commit thread.
+     */
+    public synchronized void flush() {
+        if (!hasPendingCommit || batchRecords != null) {
+            // A flush held back by a batch is requested again when the batch ends
+            return;
+        }
+        hasPendingCommit = false;
+        List<Task> snapshot = pendingSnapshot == null ? null : new ArrayList<>(pendingSnapshot);
+        pendingSnapshot = null;
+        commitNow(snapshot);
+    }
+
+    /**
+     * Flushes pending commits and releases the background thread and open files.
+     */
+    public void close() {
+        flush();
+        if (groupCommitter != null) {
+            groupCommitter.shutdown();
+        }
+        synchronized (this) {
+            journal.close();
+        }
+    }
+
+    private synchronized void commitNow(List<Task> taskList) {
+        if (!isJournaled) {
+            save(taskList);
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            journal.sync();
+            recordTimer("journal sync", System.nanoTime() - start);
+        } catch (IOException e) {
+            System.out.println("An error occurred while writing to journal: " + e.getMessage());
+            if (taskList != null) {
+                save(taskList);
+            }
+            return;
+        }
+        if (taskList != null && journal.getRecordCount() >= compactionThreshold) {
+            save(taskList);
+        }
+    }
+
+    /**
+     * Saves tasks to the file as a new snapshot, which supersedes any journal written so far.
+     *
+     * @param taskList List of tasks to save.
+     */
+    public synchronized void save(List<Task> taskList) {
+        try {
+            long start = System.nanoTime();
+            writeSnapshot(taskList, generation + 1);
+            recordTimer("snapshot write", System.nanoTime() - start);
         } catch (IOException e) {
             System.out.println("An error occurred while writing to file: " + e.getMessage());
+            return;
         }
+
+        generation++;
+        try {
+            if (isJournaled) {
+                journal.reset(generation);
+            } else {
+                journal.delete();
+            }
+        } catch (IOException e) {
+            System.out.println("An error occurred while writing to journal: " + e.getMessage());
+        }
+    }
+
+    private void recordTimer(String name, long nanos) {
+        if (metrics != null) {
+            metrics.recordTimer(name, nanos);
+        }
+    }
+
+    private void writeSnapshot(List<Task> taskList, long snapshotGeneration) throws IOException {
+        Path target = Paths.get(filePath);
+        Path temp = Paths.get(filePath + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+            if (format == Format.BINARY) {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, READ_BUFFER_SIZE));
+                BinaryTaskFormat.write(taskList, snapshotGeneration, data);
+                data.flush();
+            } else {
+                writeText(taskList, snapshotGeneration, out);
+            }
+            out.getFD().sync();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Forces a change to the entries of a directory, such as the rename of a snapshot, to disk. Some platforms
+     * cannot open a directory for syncing; there the rename is left to the file system.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be synced on this platform
+        }
+    }
+
+    private static void writeText(List<Task> taskList, long snapshotGeneration, FileOutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.format("G|%d%n", snapshotGeneration));
+        StringBuilder line = new StringBuilder();
+        for (Task task : taskList) {
+            line.setLength(0);
+            TaskCodec.appendTo(task, line);
+            writer.append(line).write(System.lineSeparator());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Converts a task file, including any journal that belongs to it, into a snapshot in the given format.
+     *
+     * @param sourcePath Path of the file to convert, in either format.
+     * @param targetPath Path of the converted file. May be the same as the source.
+     * @param format     Format of the converted file.
+     */
+    public static void convert(String sourcePath, String targetPath, Format format) {
+        Storage source = new Storage(sourcePath);
+        List<Task> tasks = source.load();
+        Storage target = new Storage(targetPath);
+        target.setFormat(format);
+        target.generation = source.generation;
+        target.save(tasks);
     }
 }
@@ -2,10 +2,18 @@ package dubey;
 
 /**
  * Represents a task with a description and a completion status.
+ * The status is volatile so that a task marked on one thread is seen as done by readers on any other.
+ * Every task in a list has a positive ID that stays the same when other tasks are added or deleted; 0 means the
+ * task has not been given one yet.
+ * The line shown for the task is rendered once and cached until the status changes. Fields shown in the line are
+ * only set on construction, so the status is the only thing that invalidates it.
  */
 class Task {
     protected String description;
-    protected boolean isDone;
+    protected volatile boolean isDone;
+    private long id;
+    /** Cached result of {@link #render()}, or null if it has to be rendered again. */
+    private volatile String rendered;
 
     /**
      * Constructor for Task Class.
@@ -35,17 +43,71 @@ class Task {
         return description;
     }
 
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
     /**
      * Sets the completion status of the task.
      *
      * @param status True if the task is done, false otherwise.
+     * @return True if the status changed, false if the task already had it.
      */
-    public void setStatus(boolean status) {
+    public synchronized boolean setStatus(boolean status) {
+        if (isDone == status) {
+            return false;
+        }
         isDone = status;
+        rendered = null;
+        return true;
     }
 
+    /**
+     * Replaces the task's fields by the equal instances pooled in an interner.
+     *
+     * @param interner The pool.
+     */
+    public void intern(Interner interner) {
+        description = interner.intern(description);
+    }
+
+    /**
+     * Gets the cached line of the task without rendering it.
+     *
+     * @return The line, or null if it has not been rendered since the status last changed.
+     */
+    String getCachedLine() {
+        return rendered;
+    }
+
+    /**
+     * Renders the line shown for the task. Subclasses add their type and fields around it.
+     *
+     * @return The line, e.g. {@code [X] Read book}.
+     */
+    protected String render() {
+        return "[" + getStatusIcon() + "] " + description;
+    }
+
+    /**
+     * Returns the line shown for the task, rendering it only if the status changed since it was last rendered.
+     * Rendering holds the task's lock, like {@link #setStatus(boolean)}, so a line rendered with the old status
+     * can never be cached after the status changed.
+     */
     @Override
     public String toString() {
-        return "[" + getStatusIcon() + "] " + description;
+        String line = rendered;
+        return line != null ? line : renderAndCache();
+    }
+
+    private synchronized String renderAndCache() {
+        if (rendered == null) {
+            rendered = render();
+        }
+        return rendered;
     }
 }
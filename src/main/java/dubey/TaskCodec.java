@@ -0,0 +1,183 @@
+package dubey;
+
+import java.time.LocalDate;
+
+/**
+ * Converts tasks to and from the pipe-delimited lines of the task file, e.g. {@code D|0|Submit report|2025-01-30|7}.
+ * The last field is the task ID; lines written before tasks had IDs end one field earlier and decode to tasks
+ * without an ID. {@link Parser} now rejects {@code |} in fields, but older files may hold descriptions containing
+ * it, so fields are taken from the end of the line and the description keeps the rest. Lines are tokenized by hand
+ * with {@code lastIndexOf} so loading does not pay for a regex and a String array per line.
+ */
+final class TaskCodec {
+    private TaskCodec() {
+    }
+
+    /**
+     * Encodes a task as a single line without a trailing line separator.
+     *
+     * @param task The task to encode.
+     * @return The encoded line.
+     */
+    public static String encode(Task task) {
+        StringBuilder sb = new StringBuilder(task.description.length() + 32);
+        appendTo(task, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the encoded form of a task to a builder without a trailing line separator.
+     *
+     * @param task The task to encode.
+     * @param sb   The builder to append to.
+     */
+    public static void appendTo(Task task, StringBuilder sb) {
+        if (task instanceof Todo) {
+            sb.append("T|").append(task.isDone ? 1 : 0).append('|').append(task.description);
+        } else if (task instanceof Deadline deadline) {
+            sb.append("D|").append(task.isDone ? 1 : 0).append('|').append(task.description)
+                    .append('|').append(deadline.by);
+        } else if (task instanceof Event event) {
+            sb.append("E|").append(task.isDone ? 1 : 0).append('|').append(task.description)
+                    .append('|').append(event.from).append('|').append(event.to);
+        } else {
+            throw new RuntimeException("Unknown task type: " + task.getClass());
+        }
+        if (task.getId() != 0) {
+            sb.append('|').append(task.getId());
+        }
+    }
+
+    /**
+     * Decodes a task line.
+     *
+     * @param line The line to decode.
+     * @return The decoded task, or null if the line does not hold a task.
+     * @throws IllegalArgumentException if a task line is missing fields.
+     */
+    public static Task decode(String line) {
+        if (line.length() < 4 || line.charAt(1) != '|' || line.charAt(3) != '|') {
+            return null;
+        }
+        char type = line.charAt(0);
+        int trailingFields;
+        switch (type) {
+        case 'T':
+            trailingFields = 0;
+            break;
+        case 'D':
+            trailingFields = 1;
+            break;
+        case 'E':
+            trailingFields = 2;
+            break;
+        default:
+            return null;
+        }
+
+        // Fields are taken from the end, so a description from an older file may still contain '|'
+        int end = line.length();
+        int idStart = line.lastIndexOf('|') + 1;
+        long id = parseId(line, idStart);
+        if (id != 0 && idStart - 1 > 3 && hasFields(line, idStart - 1, trailingFields)) {
+            end = idStart - 1;
+        } else {
+            id = 0;
+        }
+
+        Task task;
+        switch (type) {
+        case 'T':
+            task = new Todo(line.substring(4, end));
+            break;
+        case 'D':
+            int byStart = previousField(line, end);
+            task = new Deadline(line.substring(4, byStart - 1), parseDate(line, byStart, end));
+            break;
+        default:
+            int toStart = previousField(line, end);
+            int fromStart = previousField(line, toStart - 1);
+            task = new Event(line.substring(4, fromStart - 1), line.substring(fromStart, toStart - 1),
+                    line.substring(toStart, end));
+            break;
+        }
+        task.setStatus(line.charAt(2) == '1');
+        task.setId(id);
+        return task;
+    }
+
+    /**
+     * Parses the generation number of a {@code G|<n>} snapshot header line.
+     *
+     * @param line The line to parse.
+     * @return The generation, or -1 if the line is not a header.
+     */
+    public static long decodeGeneration(String line) {
+        if (line.length() < 3 || line.charAt(0) != 'G' || line.charAt(1) != '|') {
+            return -1;
+        }
+        return Long.parseLong(line, 2, line.length(), 10);
+    }
+
+    /**
+     * Parses the last field of a line as an ID.
+     *
+     * @return The ID, or 0 if the field is not a positive number, as in lines written before tasks had IDs.
+     */
+    private static long parseId(String line, int start) {
+        long id = 0;
+        for (int i = start; i < line.length(); i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || id > (Long.MAX_VALUE - digit) / 10) {
+                return 0;
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+
+    /**
+     * Returns whether the given number of fields, plus the description, come before the given separator.
+     */
+    private static boolean hasFields(String line, int separator, int count) {
+        int end = separator;
+        for (int i = 0; i < count; i++) {
+            end = line.lastIndexOf('|', end - 1);
+            if (end <= 3) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the start of the field before the one that ends at the given position.
+     */
+    private static int previousField(String line, int end) {
+        int separator = line.lastIndexOf('|', end - 1);
+        if (separator <= 3) {
+            throw new IllegalArgumentException("Missing field in task line: " + line);
+        }
+        return separator + 1;
+    }
+
+    private static LocalDate parseDate(String line, int start, int end) {
+        if (end - start != 10 || line.charAt(start + 4) != '-' || line.charAt(start + 7) != '-') {
+            return LocalDate.parse(line.substring(start, end));
+        }
+        return LocalDate.of(parseDigits(line, start, start + 4), parseDigits(line, start + 5, start + 7),
+                parseDigits(line, start + 8, end));
+    }
+
+    private static int parseDigits(String line, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid date in task line: " + line);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -1,36 +1,151 @@
 package dubey;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Manages the list of tasks.
+ * Tasks are held in a {@link TaskSequence} so deleting by position does not shift the rest of the list.
+ *
+ * <p>A task list may be read and changed from several threads. Changes are serialized by the write lock, while
+ * lookups by position and index queries share the read lock, so any number of readers run in parallel. Whole-list
+ * reads go through {@link #snapshot()}, an immutable copy of the list that is built at most once per change and is
+ * read without locking; a burst of changes with no reads in between costs no copies at all.</p>
+ *
+ * <p>The list is dirty once a task has been added or deleted, or has had its status changed, and stays dirty until
+ * {@link #clearDirty()} is called after the changes are saved.</p>
  */
 class TaskList {
-    private final ArrayList<Task> tasks;
+    private final TaskSequence tasks;
+    private final KeywordIndex keywordIndex = new KeywordIndex();
+    private final TrigramIndex<Task> trigramIndex = new TrigramIndex<>();
+    private final DateIndex dateIndex = new DateIndex();
+    private final IntervalIndex intervalIndex = new IntervalIndex();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    private final List<Task> view = new LiveView();
+    /** Copy of the list as of the last change, or null if it has not been built since. */
+    private volatile List<Task> snapshot;
+    private volatile int size;
+    private long nextId = 1;
+    /** Pool the fields of added tasks are interned into, or null if tasks keep their own copies. */
+    private final Interner interner;
+    private final AtomicBoolean isDirty = new AtomicBoolean();
 
     /**
      * Constructor for TaskList Class.
      *
      * @param tasks A list of tasks to initialize with.
      */
-    public TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+    public TaskList(List<Task> tasks) {
+        this(tasks, null);
+    }
+
+    /**
+     * Constructor for TaskList Class that deduplicates the descriptions, times and dates of its tasks.
+     *
+     * @param tasks    A list of tasks to initialize with.
+     * @param interner Pool the fields of every task are interned into, or null to leave them as they are.
+     */
+    public TaskList(List<Task> tasks, Interner interner) {
+        this.tasks = new TaskSequence(tasks);
+        this.interner = interner;
+        for (Task task : tasks) {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        for (Task task : tasks) {
+            if (task.getId() == 0) {
+                task.setId(nextId++);
+            }
+            index(task);
+        }
+        size = tasks.size();
     }
 
     /**
      * Constructor for TaskList Class with no initial tasks.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(new ArrayList<>(), null);
     }
 
     /**
-     * Adds a task to the list.
+     * Adds a task to the list, giving it the next free ID if it has none.
      *
      * @param task The task to add.
      */
     public void add(Task task) {
-        tasks.add(task);
+        writeLock.lock();
+        try {
+            if (task.getId() == 0) {
+                task.setId(nextId++);
+            } else {
+                nextId = Math.max(nextId, task.getId() + 1);
+            }
+            tasks.add(task);
+            index(task);
+            changed();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void index(Task task) {
+        if (interner != null) {
+            task.intern(interner);
+        }
+        keywordIndex.add(task);
+        trigramIndex.add(task, toLowerCase(task.description));
+        dateIndex.add(task);
+        intervalIndex.add(task);
+    }
+
+    private void deindex(Task task) {
+        keywordIndex.remove(task);
+        trigramIndex.remove(task);
+        dateIndex.remove(task);
+        intervalIndex.remove(task);
+    }
+
+    /**
+     * Publishes a change: called with the write lock held after the tasks have been added or removed.
+     */
+    private void changed() {
+        size = tasks.size();
+        snapshot = null;
+        isDirty.set(true);
+    }
+
+    public Interner getInterner() {
+        return interner;
+    }
+
+    public boolean isDirty() {
+        return isDirty.get();
+    }
+
+    /**
+     * Marks the list as saved.
+     *
+     * @return True if the list was dirty, i.e. it has changed since the last call.
+     */
+    public boolean clearDirty() {
+        return isDirty.getAndSet(false);
     }
 
     /**
@@ -40,41 +155,331 @@ class TaskList {
      * @return The task at the specified index.
      */
     public Task get(int index) {
-        return tasks.get(index);
+        List<Task> current = snapshot;
+        if (current != null) {
+            return current.get(index);
+        }
+        readLock.lock();
+        try {
+            return tasks.get(index);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of tasks in the list, without locking.
+     *
+     * @return The number of tasks.
+     */
+    public int size() {
+        return size;
     }
 
     /**
      * Deletes a task from the list by index.
      *
      * @param index Index of the task to delete.
+     * @return The deleted task.
      */
-    public void delete(int index) {
-        tasks.remove(index);
+    public Task delete(int index) {
+        writeLock.lock();
+        try {
+            Task deleted = tasks.remove(index);
+            deindex(deleted);
+            changed();
+            return deleted;
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
-     * Gets the list of all tasks.
+     * Sets the completion status of a task. The status is set while holding the write lock so that it is not
+     * interleaved with a deletion that shifts the task to another position.
+     *
+     * @param index  Index of the task.
+     * @param isDone True if the task is done, false otherwise.
+     * @return True if the status changed, false if the task already had it.
+     */
+    public boolean setStatus(int index, boolean isDone) {
+        writeLock.lock();
+        try {
+            if (!tasks.get(index).setStatus(isDone)) {
+                return false;
+            }
+            isDirty.set(true);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the tasks at several positions in one pass.
+     *
+     * @param sortedIndices Indices of the tasks to delete, in ascending order without duplicates.
+     * @return The deleted tasks in list order.
+     */
+    public List<Task> deleteAll(int[] sortedIndices) {
+        writeLock.lock();
+        try {
+            for (int index : sortedIndices) {
+                if (index < 0 || index >= tasks.size()) {
+                    throw new IndexOutOfBoundsException("Task " + (index + 1) + " is not in the list");
+                }
+            }
+            List<Task> deleted = tasks.removeAll(sortedIndices);
+            for (Task task : deleted) {
+                deindex(task);
+            }
+            changed();
+            return deleted;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the indices of all tasks that are done.
+     *
+     * @return Indices in ascending order.
+     */
+    public int[] getDoneIndices() {
+        List<Task> current = snapshot();
+        int[] indices = new int[current.size()];
+        int count = 0;
+        int index = 0;
+        for (Task task : current) {
+            if (task.isDone) {
+                indices[count++] = index;
+            }
+            index++;
+        }
+        return Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Gets a read-only view of the list that follows later changes. Every call on the view, and every iteration,
+     * reads the latest {@link #snapshot()}; use the snapshot itself when several calls must agree with each other.
      *
      * @return The list of tasks.
      */
-    public ArrayList<Task> getTasks() {
-        return tasks;
+    public List<Task> getTasks() {
+        return view;
+    }
+
+    /**
+     * Gets an immutable copy of the list as it is now. Later additions and deletions do not show in the copy,
+     * though changes to the status of its tasks do.
+     *
+     * @return The tasks in order.
+     */
+    public List<Task> snapshot() {
+        List<Task> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        readLock.lock();
+        try {
+            current = snapshot;
+            if (current == null) {
+                // Racing readers may each build a copy; they are equal, and the last one published wins
+                current = Collections.unmodifiableList(Arrays.asList(tasks.toArray(new Task[0])));
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Read-only view of the latest snapshot.
+     */
+    private class LiveView extends AbstractList<Task> implements RandomAccess {
+        @Override
+        public Task get(int index) {
+            return snapshot().get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return snapshot().iterator();
+        }
+
+        @Override
+        public Object[] toArray() {
+            return snapshot().toArray();
+        }
     }
 
     /**
-     * Finds the list of all tasks with relevant input keyword.
+     * Finds the list of all tasks with relevant input keyword, ignoring case.
+     * A task matches if its description contains every word of the keyword, looked up in the keyword index, or
+     * contains the keyword as a substring, e.g. {@code book} in "Buy notebook". Substring candidates are narrowed
+     * down with the trigram index before each is checked.
      *
      * @param keyword Keyword user is trying to find.
-     * @return The list of tasks.
+     * @return The list of tasks, in the order they were added.
      */
     public ArrayList<Task> findTasks(String keyword) {
+        List<Task> wordMatches;
+        List<Task> candidates;
+        readLock.lock();
+        try {
+            wordMatches = new ArrayList<>(keywordIndex.findAll(KeywordIndex.tokenize(keyword)));
+            candidates = trigramIndex.findCandidates(toLowerCase(keyword));
+        } finally {
+            readLock.unlock();
+        }
 
-        ArrayList<Task> taskList = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.description.contains(keyword)) {
-                taskList.add(task);
+        Set<Task> matches = new HashSet<>(wordMatches);
+        for (Task task : candidates == null ? snapshot() : candidates) {
+            if (containsIgnoreCase(task.description, keyword)) {
+                matches.add(task);
             }
         }
+        ArrayList<Task> taskList = new ArrayList<>(matches);
+        // IDs are handed out in the order tasks are added, which is also their order in the list
+        taskList.sort(Comparator.comparingLong(Task::getId));
         return taskList;
     }
+
+    private static boolean containsIgnoreCase(String text, String query) {
+        for (int i = 0; i + query.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lower-cases a text character by character, so that positions in the result match those in the text.
+     */
+    private static String toLowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Finds the tasks containing words similar to every word of the keyword, tolerating typos.
+     *
+     * @param keyword     Keyword user is trying to find.
+     * @param maxDistance Maximum edit distance between a word of the keyword and a word of the description.
+     * @return The list of tasks, closest matches of the first word first.
+     */
+    public ArrayList<Task> findTasksFuzzy(String keyword, int maxDistance) {
+        Set<Task> matches = null;
+        for (String token : KeywordIndex.tokenize(keyword)) {
+            Set<Task> tokenMatches;
+            readLock.lock();
+            try {
+                tokenMatches = keywordIndex.findFuzzy(token, maxDistance);
+            } finally {
+                readLock.unlock();
+            }
+            if (matches == null) {
+                matches = new LinkedHashSet<>(tokenMatches);
+            } else {
+                matches.retainAll(tokenMatches);
+            }
+        }
+        return matches == null ? new ArrayList<>() : new ArrayList<>(matches);
+    }
+
+    /**
+     * Finds the deadlines due on a date.
+     *
+     * @param date The due date.
+     * @return The list of deadlines.
+     */
+    public ArrayList<Task> findDueOn(LocalDate date) {
+        readLock.lock();
+        try {
+            return new ArrayList<>(dateIndex.findOn(date));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the deadlines due before a date.
+     *
+     * @param date The date, exclusive.
+     * @return The list of deadlines, earliest first.
+     */
+    public ArrayList<Task> findDueBefore(LocalDate date) {
+        readLock.lock();
+        try {
+            return new ArrayList<>(dateIndex.findBefore(date));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the deadlines that are not done and were due before today.
+     *
+     * @param today The current date.
+     * @return The list of overdue deadlines, earliest first.
+     */
+    public ArrayList<Task> findOverdue(LocalDate today) {
+        ArrayList<Task> overdue = new ArrayList<>();
+        for (Task task : findDueBefore(today)) {
+            if (!task.isDone) {
+                overdue.add(task);
+            }
+        }
+        return overdue;
+    }
+
+    /**
+     * Finds the events taking place, at least partly, between two dates.
+     *
+     * @param from First date, inclusive.
+     * @param to   Last date, inclusive.
+     * @return The list of events ordered by start time.
+     */
+    public ArrayList<Task> findEventsBetween(LocalDate from, LocalDate to) {
+        readLock.lock();
+        try {
+            return new ArrayList<>(intervalIndex.findOverlapping(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the other events whose times overlap with an event.
+     *
+     * @param event The event to check.
+     * @return The list of clashing events ordered by start time, empty if the event's times were not parsed.
+     */
+    public ArrayList<Task> findClashes(Event event) {
+        ArrayList<Task> clashes = new ArrayList<>();
+        if (!event.hasInterval()) {
+            return clashes;
+        }
+        readLock.lock();
+        try {
+            for (Event other : intervalIndex.findOverlapping(event.start, event.end)) {
+                if (other != event) {
+                    clashes.add(other);
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return clashes;
+    }
 }
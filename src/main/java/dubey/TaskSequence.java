@@ -0,0 +1,269 @@
+package dubey;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * List of tasks stored as a sequence of small chunks, with a Fenwick tree over the chunk sizes to find the chunk
+ * holding a position. Positional get, insert and delete cost O(log C + B) for C chunks of at most B tasks, instead
+ * of shifting the whole tail of an array on every insert or delete.
+ */
+class TaskSequence extends AbstractList<Task> implements RandomAccess {
+    private static final int MAX_CHUNK_SIZE = 512;
+
+    private final ArrayList<ArrayList<Task>> chunks = new ArrayList<>();
+    /** Fenwick tree over chunk sizes, 1-based: tree[i] sums the sizes of chunks (i - lowbit(i), i]. */
+    private int[] tree = new int[16];
+    private int size;
+
+    /**
+     * Constructor for TaskSequence Class with no initial tasks.
+     */
+    public TaskSequence() {
+    }
+
+    /**
+     * Constructor for TaskSequence Class, filling chunks up to half their capacity so early inserts don't split.
+     *
+     * @param tasks Tasks to initialize with, in order.
+     */
+    public TaskSequence(List<Task> tasks) {
+        fill(tasks);
+    }
+
+    private void fill(List<Task> tasks) {
+        chunks.clear();
+        int fill = MAX_CHUNK_SIZE / 2;
+        for (int start = 0; start < tasks.size(); start += fill) {
+            ArrayList<Task> chunk = new ArrayList<>(MAX_CHUNK_SIZE);
+            chunk.addAll(tasks.subList(start, Math.min(start + fill, tasks.size())));
+            chunks.add(chunk);
+        }
+        size = tasks.size();
+        rebuildTree();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index, size);
+        int chunkIndex = findChunk(index);
+        return chunks.get(chunkIndex).get(index - prefixSize(chunkIndex));
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        checkIndex(index, size);
+        int chunkIndex = findChunk(index);
+        return chunks.get(chunkIndex).set(index - prefixSize(chunkIndex), task);
+    }
+
+    @Override
+    public boolean add(Task task) {
+        ArrayList<Task> last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (last == null || last.size() >= MAX_CHUNK_SIZE) {
+            appendChunk(task);
+        } else {
+            last.add(task);
+            updateTree(chunks.size() - 1, 1);
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        checkIndex(index, size + 1);
+        if (index == size) {
+            add(task);
+            return;
+        }
+        int chunkIndex = findChunk(index);
+        ArrayList<Task> chunk = chunks.get(chunkIndex);
+        chunk.add(index - prefixSize(chunkIndex), task);
+        size++;
+        modCount++;
+        if (chunk.size() > MAX_CHUNK_SIZE) {
+            splitChunk(chunkIndex);
+        } else {
+            updateTree(chunkIndex, 1);
+        }
+    }
+
+    @Override
+    public Task remove(int index) {
+        checkIndex(index, size);
+        int chunkIndex = findChunk(index);
+        ArrayList<Task> chunk = chunks.get(chunkIndex);
+        Task removed = chunk.remove(index - prefixSize(chunkIndex));
+        size--;
+        modCount++;
+        if (chunk.isEmpty()) {
+            chunks.remove(chunkIndex);
+            rebuildTree();
+        } else {
+            updateTree(chunkIndex, -1);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the tasks at the given positions. Few positions are removed one by one; many are removed in a
+     * single pass that rebuilds the chunks.
+     *
+     * @param sortedIndices Positions to remove, in ascending order without duplicates.
+     * @return The removed tasks in ascending order of their former positions.
+     */
+    public List<Task> removeAll(int[] sortedIndices) {
+        List<Task> removed = new ArrayList<>(sortedIndices.length);
+        if ((long) sortedIndices.length * MAX_CHUNK_SIZE < size) {
+            for (int i = sortedIndices.length - 1; i >= 0; i--) {
+                removed.add(remove(sortedIndices[i]));
+            }
+            Collections.reverse(removed);
+            return removed;
+        }
+
+        List<Task> kept = new ArrayList<>(size - sortedIndices.length);
+        int next = 0;
+        int position = 0;
+        for (Task task : this) {
+            if (next < sortedIndices.length && sortedIndices[next] == position) {
+                removed.add(task);
+                next++;
+            } else {
+                kept.add(task);
+            }
+            position++;
+        }
+        fill(kept);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        chunks.clear();
+        size = 0;
+        modCount++;
+        rebuildTree();
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private int chunkIndex;
+            private int offset;
+
+            @Override
+            public boolean hasNext() {
+                while (chunkIndex < chunks.size() && offset >= chunks.get(chunkIndex).size()) {
+                    chunkIndex++;
+                    offset = 0;
+                }
+                return chunkIndex < chunks.size();
+            }
+
+            @Override
+            public Task next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunks.get(chunkIndex).get(offset++);
+            }
+        };
+    }
+
+    private void appendChunk(Task task) {
+        ArrayList<Task> chunk = new ArrayList<>(MAX_CHUNK_SIZE);
+        chunk.add(task);
+        chunks.add(chunk);
+        int n = chunks.size();
+        if (n >= tree.length) {
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        }
+        // tree[n] covers chunks (n - lowbit(n), n], all of which except the new one are already counted
+        tree[n] = prefixSize(n - 1) - prefixSize(n - Integer.lowestOneBit(n)) + 1;
+    }
+
+    private void splitChunk(int chunkIndex) {
+        ArrayList<Task> chunk = chunks.get(chunkIndex);
+        int half = chunk.size() / 2;
+        ArrayList<Task> tail = new ArrayList<>(MAX_CHUNK_SIZE);
+        tail.addAll(chunk.subList(half, chunk.size()));
+        chunk.subList(half, chunk.size()).clear();
+        chunks.add(chunkIndex + 1, tail);
+        rebuildTree();
+    }
+
+    private void rebuildTree() {
+        int n = chunks.size();
+        if (n >= tree.length) {
+            tree = new int[Integer.highestOneBit(n) * 2];
+        } else {
+            Arrays.fill(tree, 0);
+        }
+        for (int i = 1; i <= n; i++) {
+            tree[i] += chunks.get(i - 1).size();
+            int parent = i + Integer.lowestOneBit(i);
+            if (parent <= n) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private void updateTree(int chunkIndex, int delta) {
+        for (int i = chunkIndex + 1; i <= chunks.size(); i += Integer.lowestOneBit(i)) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the total size of the first {@code count} chunks.
+     */
+    private int prefixSize(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= Integer.lowestOneBit(i)) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the index of the chunk holding the task at the given position.
+     */
+    private int findChunk(int index) {
+        int position = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(chunks.size()); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= chunks.size() && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + bound);
+        }
+    }
+}
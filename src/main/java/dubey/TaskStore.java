@@ -0,0 +1,70 @@
+package dubey;
+
+import java.util.List;
+
+/**
+ * A named task list together with the storage it is persisted to.
+ */
+class TaskStore {
+    /** Rough heap cost of a task apart from its description: the object, list slot and index entries. */
+    private static final long BYTES_PER_TASK = 200;
+    /** Rough heap cost of a description character: the string and its keyword and trigram postings. */
+    private static final long BYTES_PER_CHAR = 12;
+    private static final int DEFAULT_DESCRIPTION_LENGTH = 24;
+
+    private final String name;
+    private final Storage storage;
+    private final long bytesPerTask;
+    private volatile TaskList taskList;
+
+    /**
+     * Constructor for TaskStore Class. Loads the tasks from the storage.
+     *
+     * @param name     Name of the list.
+     * @param storage  Storage the tasks are loaded from and persisted to.
+     * @param interner Pool the fields of the tasks are interned into, or null to leave them as they are.
+     */
+    public TaskStore(String name, Storage storage, Interner interner) {
+        this.name = name;
+        this.storage = storage;
+        List<Task> tasks = storage.load();
+        long descriptionLength = 0;
+        for (Task task : tasks) {
+            descriptionLength += task.description.length();
+        }
+        long averageLength = tasks.isEmpty() ? DEFAULT_DESCRIPTION_LENGTH : descriptionLength / tasks.size();
+        this.bytesPerTask = BYTES_PER_TASK + BYTES_PER_CHAR * averageLength;
+        this.taskList = new TaskList(tasks, interner);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public TaskList getTaskList() {
+        return taskList;
+    }
+
+    /**
+     * Replaces the task list, e.g. when a batch is rolled back.
+     *
+     * @param taskList The new task list.
+     */
+    public void setTaskList(TaskList taskList) {
+        this.taskList = taskList;
+    }
+
+    /**
+     * Estimates the heap used by the list, from its size and the average description length seen when it was
+     * loaded.
+     *
+     * @return Estimated size in bytes.
+     */
+    public long estimateBytes() {
+        return taskList.size() * bytesPerTask;
+    }
+}
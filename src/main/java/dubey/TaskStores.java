@@ -0,0 +1,131 @@
+package dubey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Keeps the named task lists that are in memory. A list is loaded the first time it is used, and the lists used
+ * least recently are evicted once the estimated size of all loaded lists exceeds the memory budget. Evicting a list
+ * flushes its pending writes and closes its storage; it is loaded again from disk when next used.
+ * In compact mode, enabled with {@code -Ddubey.compact=true}, all lists share one {@link Interner} so that equal
+ * descriptions, times and dates are kept only once.
+ */
+class TaskStores {
+    private static final long DEFAULT_MEMORY_BUDGET_MB = 256;
+
+    private final Storage template;
+    /** Loaded lists, least recently used first. */
+    private final LinkedHashMap<String, TaskStore> stores = new LinkedHashMap<>(16, 0.75f, true);
+    private final Metrics metrics;
+    private final Interner interner = Boolean.getBoolean("dubey.compact") ? new Interner() : null;
+    private long memoryBudget = Long.getLong("dubey.memory.budget", DEFAULT_MEMORY_BUDGET_MB) << 20;
+    private long evictionCount;
+
+    /**
+     * Constructor for TaskStores Class. Other lists are kept next to the default list's file and use the same
+     * storage settings. The memory budget is read from {@code -Ddubey.memory.budget=<megabytes>} and defaults to
+     * 256 MB.
+     *
+     * @param defaultStorage Storage of the default list, named after its file.
+     * @param metrics        Metrics the loads and evictions are recorded into.
+     */
+    public TaskStores(Storage defaultStorage, Metrics metrics) {
+        this.template = defaultStorage;
+        this.metrics = metrics;
+        stores.put(defaultStorage.getName(), new TaskStore(defaultStorage.getName(), defaultStorage, interner));
+    }
+
+    /**
+     * Sets the memory budget. It is enforced the next time {@link #evictOverBudget(Collection)} is called.
+     *
+     * @param memoryBudget Estimated size in bytes that the loaded lists may take up together.
+     */
+    public synchronized void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Gets the name of the default list.
+     *
+     * @return The name of the default list's file without its extension.
+     */
+    public String getDefaultName() {
+        return template.getName();
+    }
+
+    /**
+     * Gets a list, loading it if it is not in memory. An unknown name gives an empty list, which is saved once it
+     * is changed.
+     *
+     * @param name Name of the list.
+     * @return The list.
+     */
+    public synchronized TaskStore get(String name) {
+        TaskStore store = stores.get(name);
+        if (store == null) {
+            long start = System.nanoTime();
+            Storage storage = template.createSibling(name);
+            store = new TaskStore(name, storage, interner);
+            stores.put(name, store);
+            metrics.recordTimer("list load", System.nanoTime() - start);
+        }
+        return store;
+    }
+
+    /**
+     * Evicts the least recently used lists until the loaded lists fit in the memory budget. Lists in use are never
+     * evicted, even if they do not fit on their own.
+     *
+     * @param inUse The lists in use by open sessions.
+     * @return Names of the evicted lists.
+     */
+    public synchronized List<String> evictOverBudget(Collection<TaskStore> inUse) {
+        List<String> evicted = new ArrayList<>();
+        long total = 0;
+        for (TaskStore store : stores.values()) {
+            total += store.estimateBytes();
+        }
+        Iterator<TaskStore> iterator = stores.values().iterator();
+        while (total > memoryBudget && iterator.hasNext()) {
+            TaskStore store = iterator.next();
+            if (inUse.contains(store)) {
+                continue;
+            }
+            long start = System.nanoTime();
+            total -= store.estimateBytes();
+            iterator.remove();
+            store.getStorage().close();
+            evicted.add(store.getName());
+            evictionCount++;
+            metrics.recordTimer("list eviction", System.nanoTime() - start);
+        }
+        return evicted;
+    }
+
+    /**
+     * Checks if a list is in memory, without counting as a use.
+     *
+     * @param name Name of the list.
+     * @return true if the list is loaded.
+     */
+    public synchronized boolean isLoaded(String name) {
+        return stores.containsKey(name);
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Flushes and closes the storage of every loaded list.
+     */
+    public synchronized void close() {
+        for (TaskStore store : stores.values()) {
+            store.getStorage().close();
+        }
+        stores.clear();
+    }
+}
@@ -0,0 +1,142 @@
+package dubey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index from every three-character sequence of a text to the items whose text contains it.
+ * Used to narrow down the candidates of a substring or fuzzy search before verifying them.
+ * Posting lists are plain arrays in insertion order; removed items are filtered out lazily and purged once they
+ * make up a large share of the index. An item's text must not change while it is indexed.
+ *
+ * @param <T> Type of the indexed items.
+ */
+class TrigramIndex<T> {
+    private static final int MIN_PURGE_SIZE = 1024;
+
+    private final Map<Long, ArrayList<T>> postings = new HashMap<>();
+    private final Set<T> removed = new HashSet<>();
+    private int size;
+
+    /**
+     * Adds an item under every trigram of its text.
+     *
+     * @param item The item to index.
+     * @param text The text of the item.
+     */
+    public void add(T item, String text) {
+        size++;
+        if (removed.remove(item)) {
+            // Its postings were never purged, so they only need to become visible again
+            return;
+        }
+        for (long trigram : trigrams(text)) {
+            postings.computeIfAbsent(trigram, key -> new ArrayList<>(4)).add(item);
+        }
+    }
+
+    /**
+     * Removes an item from the index.
+     *
+     * @param item The item to remove.
+     */
+    public void remove(T item) {
+        size--;
+        removed.add(item);
+        if (removed.size() > MIN_PURGE_SIZE && removed.size() > size) {
+            purge();
+        }
+    }
+
+    private void purge() {
+        postings.values().removeIf(items -> {
+            items.removeIf(removed::contains);
+            items.trimToSize();
+            return items.isEmpty();
+        });
+        removed.clear();
+    }
+
+    /**
+     * Finds the items whose text may contain the query. The caller still has to verify each candidate.
+     *
+     * @param query The substring being searched for.
+     * @return Candidates in insertion order, or null if the query is too short to narrow the search.
+     */
+    public List<T> findCandidates(String query) {
+        long[] queryTrigrams = trigrams(query);
+        if (queryTrigrams.length == 0) {
+            return null;
+        }
+
+        List<T> smallest = null;
+        for (long trigram : queryTrigrams) {
+            List<T> items = postings.get(trigram);
+            if (items == null) {
+                return new ArrayList<>();
+            }
+            if (smallest == null || items.size() < smallest.size()) {
+                smallest = items;
+            }
+        }
+
+        List<T> candidates = new ArrayList<>(smallest.size());
+        for (T item : smallest) {
+            if (removed.isEmpty() || !removed.contains(item)) {
+                candidates.add(item);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Counts, for every item sharing at least one trigram with the query, how many distinct trigrams it shares.
+     *
+     * @param query The query text.
+     * @return Number of shared trigrams per item.
+     */
+    public Map<T, Integer> countShared(String query) {
+        Map<T, Integer> counts = new HashMap<>();
+        for (long trigram : trigrams(query)) {
+            List<T> items = postings.get(trigram);
+            if (items == null) {
+                continue;
+            }
+            for (T item : items) {
+                if (removed.isEmpty() || !removed.contains(item)) {
+                    counts.merge(item, 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the distinct trigrams of a text, each packed into a long.
+     *
+     * @param text The text.
+     * @return The packed trigrams in ascending order, empty if the text is shorter than three characters.
+     */
+    public static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+}
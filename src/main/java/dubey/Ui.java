@@ -1,11 +1,18 @@
 package dubey;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
 
 /**
  * Handles interactions with the user.
  */
 class Ui {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy");
+    private static final int MAX_BULK_TASKS_SHOWN = 10;
 
     /**
      * Returns a welcome message.
@@ -41,15 +48,69 @@ class Ui {
      * @param taskList List of tasks.
      * @return Formatted list of tasks.
      */
-    public String showTaskList(ArrayList<Task> taskList) {
+    public String showTaskList(List<Task> taskList) {
+        return showTaskPage(taskList, 1, Math.max(taskList.size(), 1));
+    }
+
+    /**
+     * Returns one page of the list of tasks, followed by the page number if there is more than one page.
+     *
+     * @param taskList List of tasks.
+     * @param page     1-based page number.
+     * @param pageSize Number of tasks per page.
+     * @return Formatted page of tasks.
+     */
+    public String showTaskPage(List<Task> taskList, int page, int pageSize) {
         StringBuilder sb = new StringBuilder();
-        sb.append("Here are the tasks in your list:\n");
-        for (int i = 0; i < taskList.size(); i++) {
-            sb.append(i + 1).append(". ").append(taskList.get(i)).append("\n");
+        try {
+            writeTaskPage(taskList, page, pageSize, sb);
+        } catch (IOException e) {
+            throw new AssertionError("StringBuilder does not throw IOException", e);
         }
         return sb.toString();
     }
 
+    /**
+     * Writes one page of the list of tasks, task by task, so that no more than one line is held in memory at once.
+     *
+     * @param taskList List of tasks.
+     * @param page     1-based page number.
+     * @param pageSize Number of tasks per page.
+     * @param out      Destination of the formatted page.
+     * @throws IOException if the destination cannot be written.
+     */
+    public void writeTaskPage(List<Task> taskList, int page, int pageSize, Appendable out) throws IOException {
+        int pageCount = Math.max(1, (taskList.size() + pageSize - 1) / pageSize);
+        if (page > pageCount) {
+            throw new IllegalArgumentException("There is no page " + page + ". The list has " + pageCount
+                    + (pageCount == 1 ? " page." : " pages."));
+        }
+        int start = (int) Math.min((long) (page - 1) * pageSize, taskList.size());
+        int end = (int) Math.min((long) start + pageSize, taskList.size());
+        writeTasks(taskList, start, end, out);
+        if (pageCount > 1) {
+            out.append("Page ").append(String.valueOf(page)).append(" of ").append(String.valueOf(pageCount));
+            out.append(page < pageCount ? ". Type \"list " + (page + 1) + "\" for the next page.\n" : ".\n");
+        }
+    }
+
+    /**
+     * Writes the tasks in a range of the list, task by task.
+     *
+     * @param taskList List of tasks.
+     * @param start    Index of the first task to write.
+     * @param end      Index after the last task to write.
+     * @param out      Destination of the formatted tasks.
+     * @throws IOException if the destination cannot be written.
+     */
+    public void writeTasks(List<Task> taskList, int start, int end, Appendable out) throws IOException {
+        out.append("Here are the tasks in your list:\n");
+        ListIterator<Task> tasks = taskList.listIterator(start);
+        for (int i = start; i < end; i++) {
+            out.append(String.valueOf(i + 1)).append(". ").append(tasks.next().toString()).append("\n");
+        }
+    }
+
     /**
      * Returns a message when a task is added.
      *
@@ -86,14 +147,212 @@ class Ui {
         return "OK, I've marked this task as not done yet:\n" + task;
     }
 
+    /**
+     * Returns a message when several tasks are deleted at once.
+     *
+     * @return Formatted tasks deleted message.
+     */
+    public String showTasksDeleted(List<Task> tasks, int size) {
+        return showBulkChange("Noted. I've removed " + tasks.size() + " tasks:\n", tasks)
+                + "Now you have " + size + " tasks in the list.";
+    }
+
+    /**
+     * Returns a message when several tasks are marked as done at once.
+     *
+     * @return Formatted marked tasks message.
+     */
+    public String showTasksMarked(List<Task> tasks) {
+        return showBulkChange("Nice! I've marked " + tasks.size() + " tasks as done:\n", tasks);
+    }
+
+    /**
+     * Returns a message when several tasks are marked as not done at once.
+     *
+     * @return Formatted unmarked tasks message.
+     */
+    public String showTasksUnmarked(List<Task> tasks) {
+        return showBulkChange("OK, I've marked " + tasks.size() + " tasks as not done yet:\n", tasks);
+    }
+
     /**
      * Returns a list of tasks found with input keyword.
      *
      * @return Formatted list of tasks found.
      */
     public String showTaskFind(ArrayList<Task> taskList) {
+        return showNumberedTasks("Here are the matching tasks in your list:\n", taskList);
+    }
+
+    /**
+     * Returns the deadlines due on a date.
+     *
+     * @return Formatted list of deadlines.
+     */
+    public String showTasksDue(LocalDate date, ArrayList<Task> taskList) {
+        return showNumberedTasks("Here are the tasks due on " + date.format(DATE_FORMAT) + ":\n", taskList);
+    }
+
+    /**
+     * Returns the deadlines due before a date.
+     *
+     * @return Formatted list of deadlines.
+     */
+    public String showTasksDueBefore(LocalDate date, ArrayList<Task> taskList) {
+        return showNumberedTasks("Here are the tasks due before " + date.format(DATE_FORMAT) + ":\n", taskList);
+    }
+
+    /**
+     * Returns the deadlines that are overdue.
+     *
+     * @return Formatted list of overdue deadlines.
+     */
+    public String showTasksOverdue(ArrayList<Task> taskList) {
+        if (taskList.isEmpty()) {
+            return "Nothing is overdue. Well done!";
+        }
+        return showNumberedTasks("Here are your overdue tasks:\n", taskList);
+    }
+
+    /**
+     * Returns the events taking place on a date.
+     *
+     * @return Formatted list of events.
+     */
+    public String showEventsOn(LocalDate date, ArrayList<Task> taskList) {
+        return showNumberedTasks("Here are the events on " + date.format(DATE_FORMAT) + ":\n", taskList);
+    }
+
+    /**
+     * Returns the events taking place between two dates.
+     *
+     * @return Formatted list of events.
+     */
+    public String showEventsBetween(LocalDate from, LocalDate to, ArrayList<Task> taskList) {
+        return showNumberedTasks("Here are the events from " + from.format(DATE_FORMAT) + " to "
+                + to.format(DATE_FORMAT) + ":\n", taskList);
+    }
+
+    /**
+     * Returns a warning listing the events that clash with a newly added event.
+     *
+     * @return Formatted list of clashing events.
+     */
+    public String showEventClashes(ArrayList<Task> taskList) {
+        return showNumberedTasks("Heads up! This event clashes with:\n", taskList);
+    }
+
+    /**
+     * Returns a summary of a finished batch.
+     *
+     * @param count    Number of commands in the batch.
+     * @param failures Descriptions of the commands that failed and were skipped.
+     * @return Formatted batch summary.
+     */
+    public String showBatchResult(int count, List<String> failures) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Batch done! Ran ").append(count - failures.size()).append(" of ").append(count)
+                .append(" commands.");
+        for (String failure : failures) {
+            sb.append("\n").append(failure);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a description of a command that failed within a batch.
+     *
+     * @return Formatted failure.
+     */
+    public String showBatchFailure(int lineNumber, String input, String message) {
+        return "Line " + lineNumber + " (" + input + ") failed: " + message;
+    }
+
+    /**
+     * Returns the message for a batch that was rolled back because a command failed.
+     *
+     * @return Formatted abort message.
+     */
+    public String showBatchAborted(int lineNumber, String input, String message) {
+        return showBatchFailure(lineNumber, input, message) + "\nThe batch was cancelled and no changes were made.";
+    }
+
+    /**
+     * Returns the command statistics collected since Dubey started.
+     *
+     * @param report Formatted statistics.
+     * @return Formatted statistics message.
+     */
+    public String showStats(String report) {
+        if (report.isEmpty()) {
+            return "No statistics have been collected yet.";
+        }
+        return "Here are the statistics since I started:\n" + report;
+    }
+
+    /**
+     * Returns an estimate of the memory taken up by a task list.
+     *
+     * @param name        Name of the list.
+     * @param report      Report of the list's footprint.
+     * @param pooledCount Number of values in the interning pool, or -1 if compact mode is off.
+     * @param usedHeap    Heap in use by the whole JVM, in bytes.
+     * @param maxHeap     Largest heap the JVM may use, in bytes.
+     * @return Memory report.
+     */
+    public String showMemory(String name, String report, int pooledCount, long usedHeap, long maxHeap) {
+        return "Here is the memory used by the list \"" + name + "\":\n" + report
+                + (pooledCount < 0 ? "compact mode: off\n" : "compact mode: on, " + pooledCount + " pooled values\n")
+                + "JVM heap: " + HeapFootprint.formatBytes(usedHeap) + " used of "
+                + HeapFootprint.formatBytes(maxHeap);
+    }
+
+    /**
+     * Returns a message saying that a list is already in use.
+     *
+     * @param name Name of the list.
+     * @param size Number of tasks in the list.
+     * @return Message.
+     */
+    public String showListInUse(String name, int size) {
+        return "You are already using the list \"" + name + "\" (" + size + " tasks).";
+    }
+
+    /**
+     * Returns a message confirming a switch to another list.
+     *
+     * @param name     Name of the list switched to.
+     * @param size     Number of tasks in the list.
+     * @param isLoaded True if the list was already in memory.
+     * @param evicted  Names of the lists taken out of memory to make room.
+     * @return Confirmation message.
+     */
+    public String showListSwitched(String name, int size, boolean isLoaded, List<String> evicted) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Now using the list \"").append(name).append("\" (").append(size).append(" tasks");
+        sb.append(isLoaded ? ")." : ", loaded from disk).");
+        if (!evicted.isEmpty()) {
+            sb.append("\nSaved and unloaded to free memory: ").append(String.join(", ", evicted)).append('.');
+        }
+        return sb.toString();
+    }
+
+    private String showBulkChange(String header, List<Task> tasks) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(header);
+        int shown = Math.min(tasks.size(), MAX_BULK_TASKS_SHOWN);
+        for (int i = 0; i < shown; i++) {
+            sb.append(tasks.get(i)).append("\n");
+        }
+        if (tasks.size() > shown) {
+            sb.append("...and ").append(tasks.size() - shown).append(" more\n");
+        }
+        return sb.toString();
+    }
+
+    private String showNumberedTasks(String header, ArrayList<Task> taskList) {
         StringBuilder sb = new StringBuilder();
-        sb.append("Here are the matching tasks in your list:\n");
+        sb.append(header);
         for (int i = 0; i < taskList.size(); i++) {
             sb.append(i + 1).append(". ").append(taskList.get(i)).append("\n");
         }
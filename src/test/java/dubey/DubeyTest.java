@@ -1,11 +1,30 @@
 package dubey;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 
@@ -53,7 +72,7 @@ public class DubeyTest {
         // Test adding a todo task
         dubey.processCommand("todo Read book");
         taskList.add(new Todo("Read book"));
-        ArrayList<Task> tasks = taskList.getTasks();
+        List<Task> tasks = taskList.getTasks();
         assertEquals(1, tasks.size());
         assertEquals("[T][ ] Read book", tasks.get(0).toString());
 
@@ -75,4 +94,934 @@ public class DubeyTest {
         assertEquals(1, tasks.size());
         assertEquals("[D][ ] Submit assignment (by: Jan 31 2025)", tasks.get(0).toString());
     }
+
+    @Test
+    public void testJournalReplay() throws Exception {
+        String testFilePath = "test_journal_tasks.txt";
+        Storage storage = new Storage(testFilePath);
+        storage.setJournaled(true);
+        storage.setCompactionThreshold(4);
+        Dubey dubey = new Dubey(storage);
+
+        dubey.getResponse("todo Read book");
+        dubey.getResponse("deadline Submit report /by 2025-01-30");
+        dubey.getResponse("mark 2");
+
+        // Journal has not been compacted yet, so the tasks come from replaying it
+        Storage reloaded = new Storage(testFilePath);
+        reloaded.setJournaled(true);
+        ArrayList<Task> tasks = reloaded.load();
+        assertEquals(2, tasks.size());
+        assertEquals("[D][X] Submit report (by: Jan 30 2025)", tasks.get(1).toString());
+
+        // Fourth record triggers compaction into a new snapshot
+        dubey.getResponse("delete 1");
+        reloaded = new Storage(testFilePath);
+        reloaded.setJournaled(true);
+        tasks = reloaded.load();
+        assertEquals(1, tasks.size());
+        assertEquals("[D][X] Submit report (by: Jan 30 2025)", tasks.get(0).toString());
+
+        // A record cut short by a crash is dropped, and the next record starts on a line of its own
+        dubey.getResponse("todo Pay bills");
+        dubey.close();
+        Files.writeString(Paths.get(testFilePath + ".journal"), "U|T|0|partial", StandardOpenOption.APPEND);
+        Storage restarted = new Storage(testFilePath);
+        restarted.setJournaled(true);
+        dubey = new Dubey(restarted);
+        dubey.getResponse("todo Call mum");
+        dubey.close();
+        reloaded = new Storage(testFilePath);
+        reloaded.setJournaled(true);
+        tasks = reloaded.load();
+        assertEquals(3, tasks.size());
+        assertEquals("[T][ ] Pay bills", tasks.get(1).toString());
+        assertEquals("[T][ ] Call mum", tasks.get(2).toString());
+
+        // Replay stops at a corrupt record, keeping the deletes before it, and the journal is cut there
+        restarted = new Storage(testFilePath);
+        restarted.setJournaled(true);
+        restarted.setCompactionThreshold(100);
+        dubey = new Dubey(restarted);
+        dubey.getResponse("delete 2");
+        dubey.close();
+        Files.writeString(Paths.get(testFilePath + ".journal"), "Q|garbage\n", StandardOpenOption.APPEND);
+        restarted = new Storage(testFilePath);
+        restarted.setJournaled(true);
+        restarted.setCompactionThreshold(100);
+        assertEquals(List.of("[D][X] Submit report (by: Jan 30 2025)", "[T][ ] Call mum"),
+                restarted.load().stream().map(Task::toString).toList());
+        assertFalse(Files.readString(Paths.get(testFilePath + ".journal")).contains("Q|garbage"));
+        dubey = new Dubey(restarted);
+        dubey.getResponse("todo Walk dog");
+        dubey.close();
+        reloaded = new Storage(testFilePath);
+        reloaded.setJournaled(true);
+        tasks = reloaded.load();
+        assertEquals(3, tasks.size());
+        assertEquals("[T][ ] Walk dog", tasks.get(2).toString());
+
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+    }
+
+    @Test
+    public void testGroupCommit() {
+        String testFilePath = "test_group_tasks.txt";
+        Storage storage = new Storage(testFilePath);
+        storage.setGroupCommitLatency(10_000);
+        Dubey dubey = new Dubey(storage);
+
+        dubey.getResponse("todo Read book");
+        dubey.getResponse("todo Return book");
+        dubey.getResponse("mark 1");
+        dubey.close();
+
+        ArrayList<Task> tasks = new Storage(testFilePath).load();
+        assertEquals(2, tasks.size());
+        assertEquals("[T][X] Read book", tasks.get(0).toString());
+        assertFalse(new File(testFilePath + ".tmp").exists());
+
+        // A rolled back batch must not reach the file through a save deferred before it
+        new File(testFilePath).delete();
+        storage = new Storage(testFilePath);
+        storage.setGroupCommitLatency(10_000);
+        dubey = new Dubey(storage);
+        dubey.getResponse("todo Keep");
+        String response = dubey.getBatchResponse(List.of("todo Drop", "delete 1", "delete 9"), true);
+        assertTrue(response.startsWith("Error: Line 3 (delete 9) failed"));
+        dubey.close();
+
+        tasks = new Storage(testFilePath).load();
+        assertEquals(1, tasks.size());
+        assertEquals("[T][ ] Keep", tasks.get(0).toString());
+
+        new File(testFilePath).delete();
+    }
+
+    @Test
+    public void testParallelLoad() throws Exception {
+        String testFilePath = "test_parallel_tasks.txt";
+        try (FileWriter writer = new FileWriter(testFilePath)) {
+            writer.write("G|3\n");
+            writer.write("T|1|Test Todo\n");
+            writer.write("D|0|Submit report|2025-01-30\r\n");
+            writer.write("E|1|Team meeting|10:00 AM|12:00 PM");
+        }
+
+        Storage storage = new Storage(testFilePath);
+        storage.setParallelLoadThreshold(0);
+        ArrayList<Task> tasks = storage.load();
+
+        assertEquals(3, tasks.size());
+        assertEquals("[T][X] Test Todo", tasks.get(0).toString());
+        assertEquals("[D][ ] Submit report (by: Jan 30 2025)", tasks.get(1).toString());
+        assertEquals("[E][X] Team meeting (from: 10:00 AM to: 12:00 PM)", tasks.get(2).toString());
+        assertEquals(4, storage.getLastLoadLineCount());
+
+        // Small chunks split the file between lines, and as in a sequential read the last header wins
+        try (FileWriter writer = new FileWriter(testFilePath, true)) {
+            writer.write("\nG|5\nT|0|Pay bills\n");
+        }
+        ParallelLoader.Result result = ParallelLoader.load(Paths.get(testFilePath), 8);
+        assertEquals(5, result.getGeneration());
+        assertEquals(6, result.getLineCount());
+        assertEquals(List.of("[T][X] Test Todo", "[D][ ] Submit report (by: Jan 30 2025)",
+                "[E][X] Team meeting (from: 10:00 AM to: 12:00 PM)", "[T][ ] Pay bills"),
+                result.getTasks().stream().map(Task::toString).toList());
+        assertEquals(result.getTasks().toString(), new Storage(testFilePath).load().toString());
+
+        new File(testFilePath).delete();
+    }
+
+    @Test
+    public void testBinaryFormatConversion() throws Exception {
+        String textFilePath = "test_convert_tasks.txt";
+        String binaryFilePath = "test_convert_tasks.bin";
+        try (FileWriter writer = new FileWriter(textFilePath)) {
+            writer.write("T|1|Test Todo\n");
+            writer.write("D|0|Submit report|2025-01-30\n");
+            writer.write("E|1|Team meeting|10:00 AM|12:00 PM\n");
+        }
+
+        Storage.convert(textFilePath, binaryFilePath, Storage.Format.BINARY);
+        assertTrue(new File(binaryFilePath).length() > 0);
+        ArrayList<Task> tasks = new Storage(binaryFilePath).load();
+        assertEquals(3, tasks.size());
+        assertEquals("[D][ ] Submit report (by: Jan 30 2025)", tasks.get(1).toString());
+        assertEquals("[E][X] Team meeting (from: 10:00 AM to: 12:00 PM)", tasks.get(2).toString());
+
+        Storage.convert(binaryFilePath, textFilePath, Storage.Format.TEXT);
+        tasks = new Storage(textFilePath).load();
+        assertEquals(3, tasks.size());
+        assertEquals("[T][X] Test Todo", tasks.get(0).toString());
+
+        new File(textFilePath).delete();
+        new File(binaryFilePath).delete();
+    }
+
+    @Test
+    public void testTaskCodec() {
+        Event event = new Event("Caf\u00e9 \u2615 with \u65e5\u672c team", "2024-02-29 23:30", "0005");
+        event.setStatus(true);
+        event.setId(42);
+        String line = TaskCodec.encode(event);
+        assertEquals("E|1|Caf\u00e9 \u2615 with \u65e5\u672c team|2024-02-29 23:30|0005|42", line);
+        Task decoded = TaskCodec.decode(line);
+        assertEquals(event.toString(), decoded.toString());
+        assertEquals(42, decoded.getId());
+        assertEquals(line, TaskCodec.encode(decoded));
+
+        Task deadline = TaskCodec.decode("D|0|File taxes|0999-12-31");
+        assertEquals("[D][ ] File taxes (by: Dec 31 0999)", deadline.toString());
+        assertEquals(0, deadline.getId());
+        assertEquals("T|0| spaced  out ", TaskCodec.encode(TaskCodec.decode("T|0| spaced  out ")));
+        assertEquals(7, TaskCodec.decode("T|1|Read|7").getId());
+
+        // Lines that are not tasks are skipped, while task lines with missing or broken fields are rejected
+        assertEquals(null, TaskCodec.decode("G|3"));
+        assertEquals(null, TaskCodec.decode("X|0|Unknown type"));
+        assertEquals(null, TaskCodec.decode(""));
+        assertEquals(3, TaskCodec.decodeGeneration("G|3"));
+        assertEquals(-1, TaskCodec.decodeGeneration("T|0|Read"));
+        assertThrows(IllegalArgumentException.class, () -> TaskCodec.decode("D|0|File taxes"));
+        assertThrows(IllegalArgumentException.class, () -> TaskCodec.decode("D|0|File taxes|2025-0a-30"));
+        assertThrows(IllegalArgumentException.class, () -> TaskCodec.decode("E|0|Meeting|10:00 AM"));
+    }
+
+    @Test
+    public void testFindTasks() {
+        TaskList taskList = new TaskList();
+        taskList.add(new Todo("Read book"));
+        taskList.add(new Todo("Return book to library"));
+        taskList.add(new Todo("Buy notebook"));
+        taskList.add(new Deadline("Read report", "2025-01-30"));
+
+        // Whole words come from the keyword index and substrings from the trigram index, both ignoring case
+        assertEquals(3, taskList.findTasks("book").size());
+        assertEquals("[T][ ] Buy notebook", taskList.findTasks("book").get(2).toString());
+        assertEquals(1, taskList.findTasks("READ book").size());
+        assertEquals("[T][ ] Read book", taskList.findTasks("read book").get(0).toString());
+        assertEquals(1, taskList.findTasks("book read").size());
+        assertEquals(3, taskList.findTasks("boo").size());
+        assertEquals(1, taskList.findTasks("NOTE").size());
+        assertEquals(taskList.findTasks("Report").size(), taskList.findTasks("report").size());
+
+        // Typos are tolerated by the fuzzy search
+        assertEquals(2, taskList.findTasksFuzzy("boook", 1).size());
+        assertEquals(0, taskList.findTasksFuzzy("bk", 1).size());
+        assertEquals(1, taskList.findTasksFuzzy("raed bok", 2).size());
+
+        taskList.delete(0);
+        assertEquals(2, taskList.findTasks("book").size());
+        assertEquals(0, taskList.findTasks("read book").size());
+        assertEquals(1, taskList.findTasks("ebo").size());
+    }
+
+    @Test
+    public void testDateQueries() {
+        TaskList taskList = new TaskList();
+        taskList.add(new Deadline("Submit report", "2025-01-30"));
+        taskList.add(new Todo("Read book"));
+        taskList.add(new Deadline("Pay rent", "2025-01-01"));
+        taskList.add(new Deadline("File taxes", "2025-01-30"));
+        taskList.get(2).setStatus(true);
+
+        assertEquals(2, taskList.findDueOn(LocalDate.of(2025, 1, 30)).size());
+        ArrayList<Task> dueBefore = taskList.findDueBefore(LocalDate.of(2025, 1, 30));
+        assertEquals("[D][X] Pay rent (by: Jan 01 2025)", dueBefore.get(0).toString());
+        assertEquals(3, taskList.findDueBefore(LocalDate.of(2025, 2, 1)).size());
+        assertEquals(2, taskList.findOverdue(LocalDate.of(2025, 2, 1)).size());
+
+        taskList.delete(0);
+        assertEquals(1, taskList.findDueOn(LocalDate.of(2025, 1, 30)).size());
+    }
+
+    @Test
+    public void testEventSchedule() {
+        TaskList taskList = new TaskList();
+        Event standup = new Event("Standup", "2025-02-03 0900", "0930");
+        Event offsite = new Event("Offsite", "2025-02-03", "2025-02-04");
+        Event party = new Event("Party", "Fri 7pm", "late");
+        taskList.add(standup);
+        taskList.add(offsite);
+        taskList.add(party);
+        taskList.add(new Event("Review", "2025-02-05 14:00", "2025-02-05 15:00"));
+
+        assertFalse(party.hasInterval());
+        assertEquals(2, taskList.findEventsBetween(LocalDate.of(2025, 2, 3), LocalDate.of(2025, 2, 3)).size());
+        assertEquals(1, taskList.findEventsBetween(LocalDate.of(2025, 2, 4), LocalDate.of(2025, 2, 4)).size());
+        assertEquals(3, taskList.findEventsBetween(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28)).size());
+
+        Event lunch = new Event("Lunch", "2025-02-03 1200", "1300");
+        taskList.add(lunch);
+        assertEquals("[E][ ] Offsite (from: 2025-02-03 to: 2025-02-04)", taskList.findClashes(lunch).get(0).toString());
+        assertEquals(1, taskList.findClashes(lunch).size());
+
+        taskList.delete(1);
+        assertEquals(0, taskList.findClashes(lunch).size());
+    }
+
+    @Test
+    public void testTaskSequence() {
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            expected.add(new Todo("Task " + i));
+        }
+        TaskSequence sequence = new TaskSequence(expected);
+
+        for (int i = 0; i < 1500; i++) {
+            Task task = new Todo("Inserted " + i);
+            int index = (i * 7919) % (expected.size() + 1);
+            expected.add(index, task);
+            sequence.add(index, task);
+        }
+        for (int i = 0; i < 3000; i++) {
+            int index = (i * 104729) % expected.size();
+            assertEquals(expected.remove(index), sequence.remove(index));
+        }
+
+        assertEquals(expected.size(), sequence.size());
+        assertEquals(expected, sequence);
+        assertEquals(expected.get(expected.size() - 1), sequence.get(sequence.size() - 1));
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        String testFilePath = "test_batch_tasks.txt";
+        String batchFilePath = "test_batch_commands.txt";
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+        Storage storage = new Storage(testFilePath);
+        storage.setJournaled(true);
+        Dubey dubey = new Dubey(storage);
+        dubey.getResponse("todo Read book");
+
+        // A failing command rolls back the whole batch
+        String response = dubey.getBatchResponse(List.of("todo Return book", "mark 1", "delete 9"), true);
+        assertTrue(response.startsWith("Error: Line 3 (delete 9) failed"));
+        Storage reloaded = new Storage(testFilePath);
+        ArrayList<Task> tasks = reloaded.load();
+        assertEquals(1, tasks.size());
+        assertEquals("[T][ ] Read book", tasks.get(0).toString());
+
+        // A partial batch skips failing commands and persists the rest once
+        try (FileWriter writer = new FileWriter(batchFilePath)) {
+            writer.write("# imported tasks\n");
+            writer.write("todo Return book\n\n");
+            writer.write("mark 7\n");
+            writer.write("deadline Submit report /by 2025-01-30\n");
+        }
+        response = dubey.getResponse("batch --partial " + batchFilePath);
+        assertTrue(response.contains("Ran 2 of 3 commands"));
+        tasks = new Storage(testFilePath).load();
+        assertEquals(3, tasks.size());
+        assertEquals("[D][ ] Submit report (by: Jan 30 2025)", tasks.get(2).toString());
+
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+        new File(batchFilePath).delete();
+    }
+
+    @Test
+    public void testBulkCommands() throws Exception {
+        String testFilePath = "test_bulk_tasks.txt";
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+        Storage storage = new Storage(testFilePath);
+        storage.setJournaled(true);
+        Dubey dubey = new Dubey(storage);
+        for (int i = 1; i <= 10; i++) {
+            dubey.getResponse("todo Task " + i);
+        }
+
+        assertTrue(dubey.getResponse("mark 1,4,9").contains("marked 3 tasks as done"));
+        assertTrue(dubey.getResponse("mark 2-3,3").contains("marked 2 tasks as done"));
+        assertTrue(dubey.getResponse("unmark 1").contains("not done yet"));
+        assertTrue(dubey.getResponse("delete 5-11").startsWith("Error: Task 11 is not in the list"));
+        assertTrue(dubey.getResponse("delete 3-1").startsWith("Error: Invalid task range"));
+        // Huge ranges are rejected against the list size without being expanded
+        assertTrue(dubey.getResponse("delete 1-2000000000").startsWith("Error: Task 11 is not in the list"));
+        assertTrue(dubey.getResponse("mark 1-2147483000").startsWith("Error: Task 11 is not in the list"));
+        assertTrue(dubey.getResponse("unmark 20-30,1").startsWith("Error: Task 20 is not in the list"));
+
+        String response = dubey.getResponse("delete done");
+        assertTrue(response.contains("removed 4 tasks"));
+        assertTrue(response.contains("Now you have 6 tasks"));
+        assertTrue(dubey.getResponse("delete 5-6").contains("removed 2 tasks"));
+
+        List<String> expected = List.of("Task 1", "Task 5", "Task 6", "Task 7");
+        ArrayList<Task> tasks = new Storage(testFilePath).load();
+        assertEquals(expected.size(), tasks.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), tasks.get(i).description);
+            assertFalse(tasks.get(i).isDone);
+        }
+
+        TaskSequence sequence = new TaskSequence();
+        for (int i = 0; i < 5000; i++) {
+            sequence.add(new Todo("Task " + i));
+        }
+        List<Task> removed = sequence.removeAll(new int[] {0, 1, 2, 4999});
+        assertEquals("Task 4999", removed.get(3).description);
+        removed = sequence.removeAll(IntStream.range(0, 4000).toArray());
+        assertEquals("Task 3", removed.get(0).description);
+        assertEquals(996, sequence.size());
+        assertEquals("Task 4003", sequence.get(0).description);
+
+        dubey.close();
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+    }
+
+    @Test
+    public void testParser() {
+        Command event = Parser.parse("event Project meeting /from 2025-02-01 1400 /to 1600");
+        assertEquals(Command.Type.EVENT, event.getType());
+        assertEquals("Project meeting", event.getDescription());
+        assertEquals("2025-02-01 1400", event.getFrom());
+        assertEquals("1600", event.getTo());
+
+        Command deadline = Parser.parse("deadline Submit report /by 2025-01-30");
+        assertEquals("Submit report", deadline.getDescription());
+        assertEquals(LocalDate.of(2025, 1, 30), deadline.getDate());
+
+        Command find = Parser.parse("find ~2 boook");
+        assertTrue(find.isFuzzy());
+        assertEquals(2, find.getFuzzyDistance());
+        assertEquals("boook", find.getDescription());
+        assertFalse(Parser.parse("find book").isFuzzy());
+
+        Command mark = Parser.parse("mark 7");
+        assertFalse(mark.isBulk());
+        assertEquals(7, mark.getTaskNumber());
+        assertTrue(Parser.parse("delete done").isDoneSelection());
+        assertEquals(List.of(1, 3, 7, 7), IntStream.of(Parser.parse("unmark 3,1-3, 7").getTaskRanges())
+                .boxed().toList());
+        assertEquals(List.of(1, 6), IntStream.of(Parser.parse("mark 4-6,1-2,3").getTaskRanges()).boxed().toList());
+        assertEquals(List.of(1, 2147483647), IntStream.of(Parser.parse("delete 1-2147483647,5").getTaskRanges())
+                .boxed().toList());
+
+        Command between = Parser.parse("between 2025-01-01   2025-01-31");
+        assertEquals(LocalDate.of(2025, 1, 31), between.getEndDate());
+        assertTrue(Parser.parse("batch --partial cmds.txt").isPartial());
+
+        assertParseError("todo", "Missing arguments. Usage: todo <description>");
+        assertParseError("deadline Submit report", "Missing /by date");
+        assertParseError("event Meeting /from 2025-02-01", "Missing /from or /to time");
+        assertParseError("deadline Submit report /by tomorrow", "Invalid date: tomorrow");
+        assertParseError("mark 0", "Invalid task number: 0");
+        assertParseError("delete 1,x", "Invalid task number: x");
+        assertParseError("between 2025-01-01", "Expected two dates");
+        assertParseError("sing", "Unknown command: sing");
+    }
+
+    private static void assertParseError(String input, String expectedPrefix) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Parser.parse(input));
+        assertTrue(e.getMessage().startsWith(expectedPrefix), e.getMessage());
+    }
+
+    @Test
+    public void testBenchmarkScenarios() throws Exception {
+        // The benchmarks only measure what they claim if their commands succeed and keep the list size steady
+        String testFilePath = "test_benchmark_tasks.txt";
+        List<Task> generated = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LocalDate date = LocalDate.of(2025, 1, 1).plusDays(i);
+            Task task = i % 3 == 0 ? new Todo("read report " + i)
+                    : i % 3 == 1 ? new Deadline("submit report " + i, date)
+                    : new Event("team meeting " + i, date + " 1400", "1500");
+            task.setStatus(i % 4 == 0);
+            generated.add(task);
+        }
+        Storage storage = new Storage(testFilePath);
+        storage.save(generated);
+        storage = new Storage(testFilePath);
+        storage.setJournaled(true);
+        storage.setGroupCommitLatency(200);
+        Dubey dubey = new Dubey(storage);
+        List<String> inputs = List.of("list", "mark 150", "unmark 150", "find report", "find ~1 reprot",
+                "due 2025-06-30", "before 2025-02-01", "on 2025-06-30", "between 2025-06-01 2025-06-30");
+        for (String input : inputs) {
+            assertFalse(dubey.getResponse(input).startsWith("Error"), input);
+        }
+        for (String input : List.of("todo Benchmark task", "deadline Benchmark deadline /by 2025-06-30",
+                "event Benchmark event /from 2025-06-30 1400 /to 1500")) {
+            assertTrue(dubey.getResponse(input).contains("Now you have 301 tasks"), input);
+            assertTrue(dubey.getResponse("delete 301").contains("Now you have 300 tasks"), input);
+        }
+        dubey.close();
+
+        // Saving and loading give back the same tasks in either format
+        for (Storage.Format format : Storage.Format.values()) {
+            Storage formatted = new Storage(testFilePath);
+            formatted.setFormat(format);
+            formatted.save(generated);
+            List<Task> loaded = new Storage(testFilePath).load();
+            assertEquals(generated.size(), loaded.size());
+            for (int i = 0; i < generated.size(); i++) {
+                assertEquals(generated.get(i).toString(), loaded.get(i).toString());
+            }
+        }
+
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000L, histogram.getMax());
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(Math.abs(p50 - 500_000) <= 500_000 / 32, "p50 was " + p50);
+        assertTrue(Math.abs(p99 - 990_000) <= 990_000 / 32, "p99 was " + p99);
+        assertEquals(0L, new LatencyHistogram().getValueAtPercentile(99));
+
+        String testFilePath = "test_metrics_tasks.txt";
+        String dumpFilePath = "test_metrics_dump.txt";
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+        Dubey dubey = new Dubey(testFilePath);
+        assertTrue(dubey.getResponse("stats").contains("storage load: 1 runs"));
+        dubey.getResponse("todo Read book");
+        dubey.getResponse("todo Return book");
+        dubey.getResponse("mark 5");
+        dubey.getResponse("sing");
+
+        String stats = dubey.getResponse("stats");
+        assertTrue(stats.contains("todo: 2 runs, 0 failed"));
+        assertTrue(stats.contains("mark: 1 runs, 1 failed"));
+        assertTrue(stats.contains("  parse p50 "));
+        assertTrue(stats.contains("  save p50 "));
+        // Without a journal every change rewrites the file; the first stats changes nothing and is not saved
+        assertTrue(stats.contains("snapshot write: 2 runs"));
+        assertTrue(stats.contains("skipped saves: 1"));
+        assertTrue(stats.contains("invalid commands: 1"));
+
+        dubey.getMetrics().dump(Paths.get(dumpFilePath));
+        String dump = Files.readString(Paths.get(dumpFilePath));
+        assertTrue(dump.startsWith("Dubey metrics at "));
+        assertTrue(dump.contains("todo: 2 runs"));
+
+        dubey.close();
+        new File(testFilePath).delete();
+        new File(dumpFilePath).delete();
+    }
+
+    @Test
+    public void testPagedList() throws Exception {
+        String testFilePath = "test_paged_tasks.txt";
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+        Dubey dubey = new Dubey(testFilePath);
+        dubey.getBatchResponse(IntStream.rangeClosed(1, 120).mapToObj(i -> "todo Task " + i).toList(), true);
+
+        String firstPage = dubey.getResponse("list");
+        assertTrue(firstPage.contains("50. [T][ ] Task 50\n"));
+        assertFalse(firstPage.contains("51. "));
+        assertTrue(firstPage.endsWith("Page 1 of 3. Type \"list 2\" for the next page.\n"));
+
+        String lastPage = dubey.getResponse("list 3");
+        assertTrue(lastPage.contains("Here are the tasks in your list:\n101. [T][ ] Task 101\n"));
+        assertTrue(lastPage.endsWith("120. [T][ ] Task 120\nPage 3 of 3.\n"));
+        assertTrue(dubey.getResponse("list --page-size 100 2").contains("Page 2 of 2."));
+        // The page size is kept for later list commands
+        assertTrue(dubey.getResponse("list").contains("100. [T][ ] Task 100\nPage 1 of 2."));
+        assertTrue(dubey.getResponse("list 4").startsWith("Error: There is no page 4. The list has 2 pages."));
+        assertTrue(dubey.getResponse("list --page-size 0").startsWith("Error: Invalid page size: 0"));
+        assertTrue(dubey.getResponse("list 2 3").startsWith("Error: Expected one page number."));
+        assertTrue(dubey.getResponse("list 2 --page-size 5 3").startsWith("Error: Expected one page number."));
+        assertTrue(dubey.getResponse("list two").startsWith("Error: Invalid page number: two"));
+
+        StringWriter out = new StringWriter();
+        dubey.writeTaskList(out);
+        assertEquals(new Ui().showTaskList(new TaskList(new Storage(testFilePath).load()).getTasks()),
+                out.toString());
+        assertTrue(out.toString().endsWith("120. [T][ ] Task 120\n"));
+
+        dubey.close();
+        new File(testFilePath).delete();
+    }
+
+    @Test
+    public void testChatHistory() {
+        List<Message> messages = new ArrayList<>();
+        ChatHistory history = new ChatHistory(messages, 3);
+        Message pending = Message.pending();
+        history.add(new Message("hello", false), new Message("list", true), pending);
+        assertTrue(pending.isPending());
+        assertEquals("...", pending.getText());
+
+        // The reply takes the place of its placeholder
+        history.replace(pending, new Message("1. Read book", false));
+        assertEquals(3, history.size());
+        assertEquals("1. Read book", messages.get(2).getText());
+        assertFalse(messages.get(2).isPending());
+
+        // The oldest messages are dropped beyond the limit
+        Message dropped = Message.pending();
+        history.add(new Message("todo a", true), dropped, new Message("todo b", true), Message.pending());
+        assertEquals(3, history.size());
+        assertEquals("todo b", messages.get(1).getText());
+        assertTrue(messages.get(1).isFromUser());
+
+        // A reply whose placeholder was dropped is appended instead
+        history.add(new Message("todo c", true));
+        assertFalse(messages.contains(dropped));
+        history.replace(dropped, new Message("Got it", false));
+        assertEquals(3, history.size());
+        assertEquals("Got it", messages.get(2).getText());
+    }
+
+    @Test
+    public void testCommandRunner() throws Exception {
+        CountDownLatch isReleased = new CountDownLatch(1);
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        CommandRunner runner = new CommandRunner(input -> {
+            try {
+                isReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return input + " on " + Thread.currentThread().getName();
+        });
+
+        // Submitting does not wait for the command, and commands run in order behind the blocked first one
+        runner.submit("todo a", results::add);
+        runner.submit("todo b", results::add);
+        runner.runAfterQueued(() -> results.add("bye"));
+        assertTrue(results.isEmpty());
+        isReleased.countDown();
+        assertTrue(runner.shutdown(5));
+        assertEquals(List.of("todo a on dubey-commands", "todo b on dubey-commands", "bye"), results);
+    }
+
+    @Test
+    public void testConcurrentTaskList() throws Exception {
+        TaskList taskList = new TaskList();
+        List<Task> before = taskList.snapshot();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                taskList.add(new Todo("Task " + i));
+                if (i % 3 == 0) {
+                    taskList.setStatus(i / 2, true);
+                }
+                if (i % 5 == 0) {
+                    taskList.delete(0);
+                }
+            }
+        });
+        List<Throwable> failures = new ArrayList<>();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                try {
+                    while (writer.isAlive()) {
+                        List<Task> snapshot = taskList.snapshot();
+                        int count = 0;
+                        for (Task task : snapshot) {
+                            count++;
+                            assertTrue(task.getDescription().startsWith("Task "));
+                        }
+                        assertEquals(snapshot.size(), count);
+                        taskList.findTasks("Task");
+                        taskList.getDoneIndices();
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+        }
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.isEmpty(), failures.toString());
+        assertEquals(0, before.size());
+        assertEquals(1600, taskList.size());
+        assertEquals(1600, taskList.snapshot().size());
+        assertEquals(1600, taskList.findTasks("Task").size());
+        assertThrows(UnsupportedOperationException.class, () -> taskList.snapshot().remove(0));
+    }
+
+    @Test
+    public void testServer() throws Exception {
+        String testFilePath = "test_server_tasks.txt";
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+        Dubey dubey = new Dubey(testFilePath);
+        DubeyServer server = new DubeyServer(dubey, 0);
+        server.start();
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            // Pipelined: every command is sent before any response is read
+            out.write("todo Read book\ntodo .hidden file\nlist\nfind\nbatch --partial " + testFilePath + "\nbye\n");
+            out.flush();
+            assertTrue(DubeyServer.readResponse(in).contains("Now you have 1 tasks in the list."));
+            assertTrue(DubeyServer.readResponse(in).contains("Now you have 2 tasks in the list."));
+            assertTrue(DubeyServer.readResponse(in).contains("1. [T][ ] Read book\n2. [T][ ] .hidden file\n"));
+            assertTrue(DubeyServer.readResponse(in).startsWith("Error: Missing arguments."));
+            // Batch files would let clients read any file on the server's machine
+            assertEquals("Error: Batch files can only be run from the machine Dubey runs on\n",
+                    DubeyServer.readResponse(in));
+            assertEquals("Bye. Hope to see you again soon!\n", DubeyServer.readResponse(in));
+            assertEquals(null, DubeyServer.readResponse(in));
+        }
+
+        StringWriter framed = new StringWriter();
+        DubeyServer.writeResponse("first\n.\n..two", framed);
+        assertEquals("first\n..\n...two\n.\n", framed.toString());
+        assertEquals("first\n.\n..two\n",
+                DubeyServer.readResponse(new BufferedReader(new StringReader(framed.toString()))));
+
+        server.close();
+        dubey.close();
+        new File(testFilePath).delete();
+    }
+
+    @Test
+    public void testMultipleLists() throws Exception {
+        File directory = new File("test_lists");
+        directory.mkdirs();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        Storage storage = new Storage("test_lists/main.txt");
+        storage.setJournaled(true);
+        // Long enough that only eviction or close can flush the journal during the test
+        storage.setGroupCommitLatency(60_000);
+        Dubey dubey = new Dubey(storage);
+
+        dubey.getResponse("todo Main task");
+        assertTrue(dubey.getResponse("use work").endsWith("Now using the list \"work\" (0 tasks, loaded from disk)."));
+        dubey.getResponse("todo Work task");
+        dubey.getResponse("todo Another work task");
+        assertTrue(dubey.getResponse("use main").endsWith("Now using the list \"main\" (1 tasks)."));
+        assertTrue(dubey.getResponse("find task").contains("1. [T][ ] Main task"));
+        assertTrue(dubey.getResponse("use main").endsWith("You are already using the list \"main\" (1 tasks)."));
+        assertTrue(dubey.getResponse("use ../x").startsWith("Error: Invalid list name: ../x."));
+
+        dubey.setMemoryBudget(1);
+        assertTrue(dubey.getResponse("use work").endsWith("Now using the list \"work\" (2 tasks).\n"
+                + "Saved and unloaded to free memory: main."));
+        Storage mainStorage = new Storage("test_lists/main.txt");
+        mainStorage.setJournaled(true);
+        assertEquals(1, mainStorage.load().size());
+        assertTrue(dubey.getResponse("use main").endsWith("(1 tasks, loaded from disk).\n"
+                + "Saved and unloaded to free memory: work."));
+        assertTrue(dubey.getResponse("stats").contains("list eviction: 2 runs"));
+        // A batch also unloads lists no session uses any more
+        Session other = dubey.openSession(false);
+        assertTrue(dubey.getResponse("use work", other).endsWith("(2 tasks, loaded from disk)."));
+        dubey.closeSession(other);
+        assertTrue(dubey.getBatchResponse(List.of("mark 1", "unmark 1"), true).contains("Ran 2 of 2 commands"));
+        assertTrue(dubey.getResponse("stats").contains("list eviction: 3 runs"));
+
+        dubey.close();
+        Storage workStorage = new Storage("test_lists/work.txt");
+        workStorage.setJournaled(true);
+        assertEquals(2, workStorage.load().size());
+
+        // Each connection to the server has its own list in use and page size
+        Storage sharedStorage = new Storage("test_lists/main.txt");
+        sharedStorage.setJournaled(true);
+        Dubey shared = new Dubey(sharedStorage);
+        shared.setMemoryBudget(1);
+        DubeyServer server = new DubeyServer(shared, 0);
+        server.start();
+        try (Socket first = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                Socket second = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            BufferedReader firstIn = new BufferedReader(
+                    new InputStreamReader(first.getInputStream(), StandardCharsets.UTF_8));
+            Writer firstOut = new OutputStreamWriter(first.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader secondIn = new BufferedReader(
+                    new InputStreamReader(second.getInputStream(), StandardCharsets.UTF_8));
+            Writer secondOut = new OutputStreamWriter(second.getOutputStream(), StandardCharsets.UTF_8);
+
+            assertTrue(send(firstOut, firstIn, "use work").contains("Now using the list \"work\" (2 tasks"));
+            assertTrue(send(secondOut, secondIn, "todo Second main task").contains("Now you have 2 tasks"));
+            assertTrue(send(firstOut, firstIn, "todo Third work task").contains("Now you have 3 tasks"));
+            assertTrue(send(firstOut, firstIn, "list --page-size 1").contains("Page 1 of 3"));
+            assertFalse(send(secondOut, secondIn, "list").contains("Page"));
+            assertTrue(send(secondOut, secondIn, "use main").contains("You are already using the list \"main\""));
+        }
+        server.close();
+        shared.close();
+        assertEquals(3, workStorage.load().size());
+        assertEquals(2, mainStorage.load().size());
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private static String send(Writer out, BufferedReader in, String command) throws Exception {
+        out.write(command + "\n");
+        out.flush();
+        return DubeyServer.readResponse(in);
+    }
+
+    @Test
+    public void testDirtyTracking() throws Exception {
+        String testFilePath = "test_dirty_tasks.txt";
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+        Storage storage = new Storage(testFilePath);
+        storage.setJournaled(true);
+        Dubey dubey = new Dubey(storage);
+
+        dubey.getResponse("todo Read book");
+        dubey.getResponse("mark 1");
+        dubey.getResponse("mark 1");
+        dubey.getResponse("list");
+        dubey.getResponse("find book");
+        dubey.getResponse("mark 1,1-1");
+        assertEquals(4, dubey.getMetrics().getSkippedSaveCount());
+        // One record for the todo and one for the first mark; the journal also starts with a header line
+        assertEquals(3, Files.readAllLines(Paths.get(testFilePath + ".journal")).size());
+
+        Task task = new Todo("Return book");
+        assertTrue(task.setStatus(true));
+        assertFalse(task.setStatus(true));
+        TaskList taskList = new TaskList(List.of(task));
+        assertFalse(taskList.isDirty());
+        assertFalse(taskList.setStatus(0, true));
+        assertFalse(taskList.isDirty());
+        assertTrue(taskList.setStatus(0, false));
+        assertTrue(taskList.clearDirty());
+        assertFalse(taskList.clearDirty());
+
+        dubey.close();
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+    }
+
+    @Test
+    public void testStableIds() throws Exception {
+        String testFilePath = "test_id_tasks.txt";
+        new File(testFilePath + ".journal").delete();
+        // Written before tasks had IDs
+        try (FileWriter writer = new FileWriter(testFilePath)) {
+            writer.write("T|0|Read book\nT|0|Return book\nD|0|Submit report|2025-01-30\n");
+        }
+        Storage storage = new Storage(testFilePath);
+        storage.setJournaled(true);
+        storage.setCompactionThreshold(5);
+        Dubey dubey = new Dubey(storage);
+
+        dubey.getResponse("delete 1");
+        dubey.getResponse("mark 2");
+        dubey.getResponse("todo Buy milk");
+        List<String> records = Files.readAllLines(Paths.get(testFilePath + ".journal"));
+        assertEquals(List.of("R|1", "U|D|1|Submit report|2025-01-30|3", "U|T|0|Buy milk|4"),
+                records.subList(1, records.size()));
+
+        Storage reloaded = new Storage(testFilePath);
+        reloaded.setJournaled(true);
+        List<Task> tasks = reloaded.load();
+        assertEquals(3, tasks.size());
+        assertEquals(List.of(2L, 3L, 4L), tasks.stream().map(Task::getId).toList());
+        assertEquals("[D][X] Submit report (by: Jan 30 2025)", tasks.get(1).toString());
+
+        // Compaction writes the IDs into the task file
+        dubey.getResponse("delete 1");
+        dubey.getResponse("todo Call mom");
+        assertEquals(List.of("G|1", "D|1|Submit report|2025-01-30|3", "T|0|Buy milk|4", "T|0|Call mom|5"),
+                Files.readAllLines(Paths.get(testFilePath)));
+
+        Task decoded = TaskCodec.decode("E|0|Standup|Mon 9am|10am|42");
+        assertEquals(42, decoded.getId());
+        assertEquals("E|0|Standup|Mon 9am|10am|42", TaskCodec.encode(decoded));
+        assertEquals(0, TaskCodec.decode("E|0|Standup|Mon 9am|10am").getId());
+
+        // A '|' inside a field is refused on input, but older files may hold one in a description
+        assertTrue(dubey.getResponse("todo pay A|B invoice").startsWith("Error: Descriptions and times cannot"));
+        assertTrue(dubey.getResponse("event Standup /from 9|30 /to 10").startsWith("Error: Descriptions"));
+        assertEquals("T|0|Read|0", TaskCodec.encode(TaskCodec.decode("T|0|Read|0")));
+        assertEquals("T|0|Read|", TaskCodec.encode(TaskCodec.decode("T|0|Read|")));
+        dubey.close();
+
+        new File(testFilePath + ".journal").delete();
+        try (FileWriter writer = new FileWriter(testFilePath)) {
+            writer.write("T|0|pay A|B invoice\nD|1|file A|B|2025-01-30\nE|0|sync A|B|Mon 9am|10am\n");
+        }
+        storage = new Storage(testFilePath);
+        tasks = storage.load();
+        assertEquals(List.of("[T][ ] pay A|B invoice", "[D][X] file A|B (by: Jan 30 2025)",
+                "[E][ ] sync A|B (from: Mon 9am to: 10am)"), tasks.stream().map(Task::toString).toList());
+        assertEquals(List.of(1L, 2L, 3L), tasks.stream().map(Task::getId).toList());
+        storage.save(tasks);
+        assertEquals(List.of("G|1", "T|0|pay A|B invoice|1", "D|1|file A|B|2025-01-30|2",
+                "E|0|sync A|B|Mon 9am|10am|3"), Files.readAllLines(Paths.get(testFilePath)));
+        assertEquals(tasks.toString(), new Storage(testFilePath).load().toString());
+
+        new File(testFilePath).delete();
+        new File(testFilePath + ".journal").delete();
+    }
+
+    @Test
+    public void testRenderCache() {
+        Task deadline = new Deadline("Submit report", "2025-01-30");
+        String line = deadline.toString();
+        assertEquals("[D][ ] Submit report (by: Jan 30 2025)", line);
+        assertTrue(line == deadline.toString(), "The rendered line should be cached");
+
+        deadline.setStatus(true);
+        assertEquals("[D][X] Submit report (by: Jan 30 2025)", deadline.toString());
+        assertTrue(deadline.toString() == deadline.toString());
+        deadline.setStatus(false);
+        assertEquals(line, deadline.toString());
+        assertEquals("[E][ ] Standup (from: Mon 9am to: 10am)", new Event("Standup", "Mon 9am", "10am").toString());
+    }
+
+    @Test
+    public void testCompactTasks() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            // Copies, as if each task had been read from a file
+            tasks.add(new Event(new String("Standup"), new String("2025-02-03 0900"), new String("0930")));
+            tasks.add(new Deadline(new String("Standup"), "2025-02-03"));
+        }
+        String plain = HeapFootprint.measure(new TaskList(tasks).snapshot()).report();
+        assertTrue(plain.contains("text: 12 strings"), plain);
+        assertTrue(plain.contains("dates: 9 objects"), plain);
+
+        Interner interner = new Interner();
+        TaskList taskList = new TaskList(tasks, interner);
+        taskList.add(new Todo(new String("Standup")));
+        assertTrue(taskList.get(0).description == taskList.get(6).description);
+        Event first = (Event) taskList.get(0);
+        Event second = (Event) taskList.get(2);
+        assertTrue(first.start == second.start && first.from == second.from);
+        String compact = HeapFootprint.measure(taskList.snapshot()).report();
+        assertTrue(compact.contains("text: 3 strings"), compact);
+        assertTrue(compact.contains("dates: 3 objects"), compact);
+        assertEquals(6, interner.size());
+        assertEquals("[E][ ] Standup (from: 2025-02-03 0900 to: 0930)", taskList.get(0).toString());
+
+        Dubey dubey = new Dubey("test_memory_tasks.txt");
+        dubey.getResponse("todo Read book");
+        String memory = dubey.getResponse("memory");
+        assertTrue(memory.contains("Here is the memory used by the list \"test_memory_tasks\":\ntasks: 1, 32 B\n"),
+                memory);
+        assertTrue(memory.contains("compact mode: off\nJVM heap: "));
+        dubey.close();
+        new File("test_memory_tasks.txt").delete();
+    }
 }